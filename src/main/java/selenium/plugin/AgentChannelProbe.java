@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.model.Computer;
+import hudson.remoting.VirtualChannel;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Checks whether the remoting channel of an agent actually answers, by running a no-op call with a timeout.
+ */
+public final class AgentChannelProbe {
+
+    private static final Logger LOGGER = Logger.getLogger(AgentChannelProbe.class.getName());
+
+    private static final long BASE_RETRY_DELAY_MILLIS = 200;
+    private static final long MAX_RETRY_DELAY_MILLIS = 5000;
+
+    private AgentChannelProbe() {}
+
+    public static boolean isReady(Computer computer, long timeoutMillis) {
+        VirtualChannel channel = computer.getChannel();
+        if (channel == null) {
+            return false;
+        }
+        try {
+            return channel.callAsync(new Ping()).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (IOException | ExecutionException | TimeoutException e) {
+            LOGGER.log(Level.FINE, "Channel probe failed for " + computer.getName(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Delay before the next probe: doubles per attempt up to a maximum, with jitter so agents
+     * that connected at the same time do not retry in lockstep.
+     */
+    public static long retryDelay(int attempt) {
+        long delay = Math.min(BASE_RETRY_DELAY_MILLIS << Math.min(attempt, 16), MAX_RETRY_DELAY_MILLIS);
+        return ThreadLocalRandom.current().nextLong(delay / 2, delay + 1);
+    }
+
+    private static final class Ping extends MasterToSlaveCallable<Boolean, RuntimeException> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Boolean call() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Standalone supervisor that runs on an agent next to the Selenium processes, started with
+ * {@code java -cp <plugin jar> selenium.plugin.AgentSupervisor <directory>}. It only uses the JDK, since no Jenkins
+ * classes are available outside the agent JVM.
+ * <p>
+ * The controller describes each program in {@code <name>.spec} and the supervisor keeps it in the desired state,
+ * restarting it locally after a crash with a backoff and giving up after {@link #MAX_RESTARTS} restarts within
+ * {@link #RESTART_WINDOW_MILLIS}. The current state is written to {@code <name>.state}, state changes are appended
+ * to {@code events.log} with a sequence number for the controller to pick up in batches. As a separate process the
+ * supervisor and its programs keep running while the agent is disconnected from the controller.
+ * <p>
+ * Only one supervisor runs per directory, guarded by a lock on {@code supervisor.lock}. It refreshes
+ * {@code supervisor.lease} every {@link #POLL_MILLIS}; a new supervisor started after the old one died adopts the
+ * programs that are still running instead of starting them again.
+ */
+public final class AgentSupervisor {
+
+    static final String SPEC_SUFFIX = ".spec";
+    static final String STATE_SUFFIX = ".state";
+    static final String LEASE_FILE = "supervisor.lease";
+    static final String EVENTS_FILE = "events.log";
+
+    static final String RUNNING = "RUNNING";
+    static final String RESTARTING = "RESTARTING";
+    static final String STOPPED = "STOPPED";
+    static final String FAILED = "FAILED";
+
+    static final long POLL_MILLIS = 1000;
+    static final int MAX_RESTARTS = 5;
+    static final long RESTART_WINDOW_MILLIS = 10 * 60 * 1000L;
+    private static final long MAX_RESTART_DELAY_MILLIS = 60 * 1000L;
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+    private static final long IDLE_EXIT_MILLIS = 5 * 60 * 1000L;
+    private static final long MAX_EVENTS_BYTES = 256 * 1024L;
+
+    private final Path dir;
+    private final Map<String, Program> programs = new LinkedHashMap<>();
+    // Numbers the events, so the controller can acknowledge them without losing two written in the same millisecond
+    private long sequence;
+
+    private AgentSupervisor(Path dir) {
+        this.dir = dir;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path dir = Paths.get(args[0]);
+        Files.createDirectories(dir);
+        try (FileChannel channel = FileChannel.open(
+                        dir.resolve("supervisor.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock()) {
+            if (lock == null) {
+                // Another supervisor owns this directory
+                return;
+            }
+            // Nobody reads the output of the launcher once the agent disconnects
+            PrintStream out = new PrintStream(
+                    Files.newOutputStream(
+                            dir.resolve("supervisor.out"), StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                    true,
+                    StandardCharsets.UTF_8);
+            System.setOut(out);
+            System.setErr(out);
+            new AgentSupervisor(dir).run();
+        }
+    }
+
+    private void run() throws IOException, InterruptedException {
+        sequence = readLastSequence();
+        event("supervisor", "SUPERVISOR_STARTED", "Supervisor started with PID " + ProcessHandle.current().pid());
+        long busySince = System.currentTimeMillis();
+        while (true) {
+            long now = System.currentTimeMillis();
+            writeLease(now);
+            loadSpecs();
+            boolean busy = false;
+            for (Program program : programs.values()) {
+                program.tick(now);
+                busy |= program.isWanted();
+            }
+            if (busy) {
+                busySince = now;
+            } else if (now - busySince > IDLE_EXIT_MILLIS) {
+                event("supervisor", "SUPERVISOR_EXITED", "No program to supervise, exiting");
+                Files.deleteIfExists(dir.resolve(LEASE_FILE));
+                return;
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+
+    private void writeLease(long now) throws IOException {
+        Properties lease = new Properties();
+        lease.setProperty("pid", Long.toString(ProcessHandle.current().pid()));
+        lease.setProperty("heartbeat", Long.toString(now));
+        store(lease, dir.resolve(LEASE_FILE));
+    }
+
+    private void loadSpecs() throws IOException {
+        try (DirectoryStream<Path> specs = Files.newDirectoryStream(dir, "*" + SPEC_SUFFIX)) {
+            for (Path spec : specs) {
+                String name = spec.getFileName().toString();
+                name = name.substring(0, name.length() - SPEC_SUFFIX.length());
+                Properties properties = load(spec);
+                if (properties != null) {
+                    programs.computeIfAbsent(name, Program::new).update(properties);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the highest sequence number in the event files, so a new supervisor continues after it
+     */
+    private long readLastSequence() throws IOException {
+        long last = 0;
+        for (String file : List.of(EVENTS_FILE + ".1", EVENTS_FILE)) {
+            Path path = dir.resolve(file);
+            if (!Files.exists(path)) {
+                continue;
+            }
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] event = parseEvent(line);
+                if (event != null) {
+                    last = Math.max(last, Long.parseLong(event[0]));
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * @return sequence number, timestamp, program, type and message of an event line, {@code null} if it is malformed
+     */
+    static String[] parseEvent(String line) {
+        String[] event = line.split("\t", 5);
+        return event.length == 5 && event[0].matches("\\d+") && event[1].matches("\\d+") ? event : null;
+    }
+
+    private synchronized void event(String name, String type, String message) {
+        Path events = dir.resolve(EVENTS_FILE);
+        try {
+            if (Files.exists(events) && Files.size(events) > MAX_EVENTS_BYTES) {
+                // The controller notices the shorter file and starts reading from the beginning
+                Files.move(events, dir.resolve(EVENTS_FILE + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            }
+            String line = ++sequence + "\t" + System.currentTimeMillis() + "\t" + name + "\t" + type + "\t"
+                    + message.replace('\n', ' ').replace('\t', ' ') + "\n";
+            Files.writeString(
+                    events, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Could not write supervisor event: " + e);
+        }
+    }
+
+    static Properties load(Path file) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+            return properties;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Looks up the process recorded in a state file. A PID alone may have been reused by an unrelated process after a
+     * reboot, so the start time and command line recorded with it must match as well.
+     *
+     * @return the process, empty if it is not running anymore
+     */
+    static Optional<ProcessHandle> findProcess(Properties state) {
+        long pid;
+        try {
+            pid = Long.parseLong(state.getProperty("pid", "-1"));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        String started = state.getProperty("started", "");
+        String command = state.getProperty("command", "");
+        if (pid <= 1 || (started.isEmpty() && command.isEmpty())) {
+            return Optional.empty();
+        }
+        return ProcessHandle.of(pid)
+                .filter(ProcessHandle::isAlive)
+                .filter(handle -> started.equals(startedOf(handle)) && command.equals(commandOf(handle)));
+    }
+
+    private static String startedOf(ProcessHandle handle) {
+        return handle.info()
+                .startInstant()
+                .map(instant -> Long.toString(instant.toEpochMilli()))
+                .orElse("");
+    }
+
+    private static String commandOf(ProcessHandle handle) {
+        ProcessHandle.Info info = handle.info();
+        return info.commandLine().or(info::command).orElse("");
+    }
+
+    static void store(Properties properties, Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            properties.store(out, null);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private final class Program {
+
+        private final String name;
+        private final Deque<Long> restarts = new ArrayDeque<>();
+
+        private long generation = -1;
+        private boolean configured;
+        private boolean wanted;
+        private List<String> cmd = List.of();
+        private Map<String, String> env = Map.of();
+        private String pwd;
+        private String log;
+
+        private ProcessHandle process;
+        // Only set for a process this supervisor started, an adopted one has no exit code to read
+        private Process child;
+        private String status = STOPPED;
+        private Integer lastExitCode;
+        private long nextStartAt;
+
+        Program(String name) {
+            this.name = name;
+            adopt();
+        }
+
+        boolean isWanted() {
+            return wanted;
+        }
+
+        /**
+         * Takes over a program started by an earlier supervisor if it is still running.
+         */
+        private void adopt() {
+            Properties state = load(dir.resolve(name + STATE_SUFFIX));
+            if (state == null || !RUNNING.equals(state.getProperty("status"))) {
+                return;
+            }
+            Optional<ProcessHandle> handle = findProcess(state);
+            if (handle.isPresent()) {
+                process = handle.get();
+                status = RUNNING;
+                generation = Long.parseLong(state.getProperty("generation", "-1"));
+                event(name, "ADOPTED", "Adopted running process with PID " + process.pid());
+            }
+        }
+
+        void update(Properties spec) {
+            long specGeneration = Long.parseLong(spec.getProperty("generation", "0"));
+            if (specGeneration == generation && configured) {
+                return;
+            }
+            // An adopted process keeps running if the spec it was started with did not change
+            boolean keep = specGeneration == generation;
+            configured = true;
+            generation = specGeneration;
+            wanted = RUNNING.equals(spec.getProperty("desired"));
+            List<String> newCmd = new ArrayList<>();
+            for (int i = 0; spec.containsKey("cmd." + i); i++) {
+                newCmd.add(spec.getProperty("cmd." + i));
+            }
+            cmd = newCmd;
+            Map<String, String> newEnv = new HashMap<>();
+            for (String key : spec.stringPropertyNames()) {
+                if (key.startsWith("env.")) {
+                    newEnv.put(key.substring(4), spec.getProperty(key));
+                }
+            }
+            env = newEnv;
+            pwd = spec.getProperty("pwd");
+            log = spec.getProperty("log");
+            if (!keep) {
+                restarts.clear();
+                // A new spec replaces the running process, e.g. a start with another hub or version
+                if (process != null) {
+                    stop();
+                    event(name, "STOPPED", wanted ? "Stopped to apply a new spec" : "Stopped on request");
+                } else if (RESTARTING.equals(status)) {
+                    event(name, "STOPPED", "Pending restart cancelled by a new spec");
+                }
+                status = STOPPED;
+                nextStartAt = 0;
+                writeState();
+            }
+        }
+
+        void tick(long now) {
+            if (!wanted) {
+                if (process != null) {
+                    stop();
+                    event(name, "STOPPED", "Stopped on request");
+                    writeState();
+                }
+                return;
+            }
+            if (process != null && process.isAlive()) {
+                return;
+            }
+            if (process != null) {
+                Integer exitCode = child != null && !child.isAlive() ? child.exitValue() : null;
+                process = null;
+                child = null;
+                onCrash(now, exitCode);
+                writeState();
+            }
+            if (!FAILED.equals(status) && now >= nextStartAt) {
+                start();
+                writeState();
+            }
+        }
+
+        private void onCrash(long now, Integer exitCode) {
+            lastExitCode = exitCode;
+            while (!restarts.isEmpty() && now - restarts.peekFirst() > RESTART_WINDOW_MILLIS) {
+                restarts.removeFirst();
+            }
+            String exit = exitCode != null ? " with exit code " + exitCode : "";
+            if (restarts.size() >= MAX_RESTARTS) {
+                status = FAILED;
+                event(name, "FAILED", "Exited" + exit + ", giving up after " + restarts.size() + " restarts");
+                return;
+            }
+            long delay = Math.min(MAX_RESTART_DELAY_MILLIS, POLL_MILLIS << restarts.size());
+            restarts.addLast(now);
+            nextStartAt = now + delay;
+            status = RESTARTING;
+            event(name, "EXITED", "Exited" + exit + ", restarting in " + delay + " ms");
+        }
+
+        private void start() {
+            try {
+                ProcessBuilder pb = new ProcessBuilder(cmd).redirectErrorStream(true);
+                if (pwd != null) {
+                    pb.directory(Paths.get(pwd).toFile());
+                }
+                if (log != null) {
+                    pb.redirectOutput(ProcessBuilder.Redirect.appendTo(Paths.get(log).toFile()));
+                } else {
+                    pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+                }
+                pb.environment().putAll(env);
+                child = pb.start();
+                process = child.toHandle();
+                lastExitCode = null;
+                status = RUNNING;
+                event(name, "STARTED", "Started with PID " + process.pid());
+            } catch (IOException | RuntimeException e) {
+                process = null;
+                child = null;
+                onCrash(System.currentTimeMillis(), null);
+                event(name, "START_FAILED", String.valueOf(e.getMessage()));
+            }
+        }
+
+        private void stop() {
+            if (process == null) {
+                status = STOPPED;
+                return;
+            }
+            process.destroy();
+            try {
+                process.onExit().get(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                process.destroyForcibly();
+            }
+            process = null;
+            child = null;
+            status = STOPPED;
+        }
+
+        private void writeState() {
+            Properties state = new Properties();
+            state.setProperty("status", status);
+            state.setProperty("pid", Long.toString(process != null ? process.pid() : -1));
+            if (process != null) {
+                state.setProperty("started", startedOf(process));
+                state.setProperty("command", commandOf(process));
+            }
+            state.setProperty("generation", Long.toString(generation));
+            state.setProperty("restarts", Integer.toString(restarts.size()));
+            if (lastExitCode != null) {
+                state.setProperty("exitCode", Integer.toString(lastExitCode));
+            }
+            try {
+                store(state, dir.resolve(name + STATE_SUFFIX));
+            } catch (IOException e) {
+                System.err.println("Could not write state of " + name + ": " + e);
+            }
+        }
+    }
+}
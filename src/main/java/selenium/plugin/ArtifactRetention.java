@@ -0,0 +1,249 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.util.VersionNumber;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Runs where the Selenium files live and applies the retention policy to one directory: only the newest
+ * Selenium server JARs are kept, the log is rotated and compressed once it grows too large and PID files of dead
+ * processes are removed. Reports the disk usage afterwards.
+ */
+public class ArtifactRetention extends MasterToSlaveCallable<ArtifactRetention.Result, IOException> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long STALE_PART_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final String dir;
+    private final String jarPrefix;
+    private final String currentVersion;
+    private final int keepVersions;
+    private String logName;
+    private long maxLogBytes;
+    private int keptLogs;
+    private String pidName;
+    private String cacheDir;
+
+    /**
+     * @param jarPrefix file name prefix of the JARs, followed by the version, e.g. {@code selenium-}
+     * @param currentVersion version in use, never removed
+     */
+    public ArtifactRetention(String dir, String jarPrefix, String currentVersion, int keepVersions) {
+        this.dir = dir;
+        this.jarPrefix = jarPrefix;
+        this.currentVersion = currentVersion;
+        this.keepVersions = Math.max(1, keepVersions);
+    }
+
+    public ArtifactRetention withLog(String logName, long maxLogBytes, int keptLogs) {
+        this.logName = logName;
+        this.maxLogBytes = maxLogBytes;
+        this.keptLogs = Math.max(1, keptLogs);
+        return this;
+    }
+
+    public ArtifactRetention withPidFile(String pidName) {
+        this.pidName = pidName;
+        return this;
+    }
+
+    /**
+     * Includes a further directory, e.g. the driver cache, in the reported disk usage.
+     */
+    public ArtifactRetention withCacheDir(String cacheDir) {
+        this.cacheDir = cacheDir;
+        return this;
+    }
+
+    @Override
+    public Result call() throws IOException {
+        Result result = new Result();
+        Path base = Path.of(dir);
+        if (Files.isDirectory(base)) {
+            removeOldVersions(base, result);
+            removeStaleParts(base, result);
+            if (logName != null) {
+                rotateLog(base.resolve(logName), result);
+            }
+            if (pidName != null) {
+                removeStalePidFile(base.resolve(pidName), result);
+            }
+            result.usageBytes = sizeOfOwnFiles(base);
+        }
+        if (cacheDir != null) {
+            result.cacheBytes = size(Path.of(cacheDir));
+        }
+        return result;
+    }
+
+    private void removeOldVersions(Path base, Result result) throws IOException {
+        Pattern jarPattern = Pattern.compile(Pattern.quote(jarPrefix) + "(\\d[0-9.]*)\\.jar");
+        List<VersionNumber> versions = new ArrayList<>();
+        try (Stream<Path> files = Files.list(base)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = jarPattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    versions.add(new VersionNumber(matcher.group(1)));
+                }
+            }
+        }
+        versions.sort(Comparator.reverseOrder());
+        for (VersionNumber version : versions.subList(Math.min(keepVersions, versions.size()), versions.size())) {
+            if (version.toString().equals(currentVersion)) {
+                continue;
+            }
+            String name = jarPrefix + version;
+            // The Selenium Manager binary extracted from the JAR belongs to the same version
+            for (String file : List.of(name + ".jar", name + "-manager", name + "-manager.exe")) {
+                if (Files.deleteIfExists(base.resolve(file))) {
+                    result.removed.add(file);
+                }
+            }
+        }
+    }
+
+    private void removeStaleParts(Path base, Result result) throws IOException {
+        long cutoff = System.currentTimeMillis() - STALE_PART_MILLIS;
+        try (Stream<Path> files = Files.list(base)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(jarPrefix)
+                        && name.endsWith(".part")
+                        && Files.isRegularFile(file)
+                        && Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                    Files.delete(file);
+                    result.removed.add(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the log into {@code <log>.1.gz} and truncates it in place, the node keeps its file handle open.
+     */
+    private void rotateLog(Path log, Result result) throws IOException {
+        if (!Files.isRegularFile(log) || Files.size(log) <= maxLogBytes) {
+            return;
+        }
+        String name = log.getFileName().toString();
+        Files.deleteIfExists(log.resolveSibling(name + "." + keptLogs + ".gz"));
+        for (int i = keptLogs - 1; i >= 1; i--) {
+            Path older = log.resolveSibling(name + "." + i + ".gz");
+            if (Files.exists(older)) {
+                Path newer = log.resolveSibling(name + "." + (i + 1) + ".gz");
+                Files.move(older, newer, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        try (InputStream in = Files.newInputStream(log);
+                OutputStream out = new GZIPOutputStream(Files.newOutputStream(log.resolveSibling(name + ".1.gz")))) {
+            in.transferTo(out);
+        }
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+        }
+        result.removed.add(name + " (rotated)");
+    }
+
+    private static void removeStalePidFile(Path pidFile, Result result) throws IOException {
+        if (!Files.isRegularFile(pidFile)) {
+            return;
+        }
+        String pid = Files.readString(pidFile, StandardCharsets.UTF_8).trim();
+        boolean alive = pid.matches("\\d+")
+                && ProcessHandle.of(Long.parseLong(pid)).map(ProcessHandle::isAlive).orElse(false);
+        if (!alive) {
+            Files.delete(pidFile);
+            result.removed.add(pidFile.getFileName().toString());
+        }
+    }
+
+    /**
+     * The directory may be shared, e.g. JENKINS_HOME for the hub, so only entries with the JAR prefix are counted.
+     */
+    private long sizeOfOwnFiles(Path base) throws IOException {
+        long total = 0;
+        try (Stream<Path> files = Files.list(base)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().startsWith(jarPrefix)) {
+                    total += size(file);
+                }
+            }
+        }
+        return total;
+    }
+
+    private static long size(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            return files.filter(Files::isRegularFile).mapToLong(ArtifactRetention::sizeOf).sum();
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            // Removed while walking
+            return 0;
+        }
+    }
+
+    /**
+     * Removed files and remaining disk usage of a retention run.
+     */
+    public static class Result implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> removed = new ArrayList<>();
+        private long usageBytes;
+        private long cacheBytes;
+
+        public List<String> getRemoved() {
+            return removed;
+        }
+
+        public long getUsageBytes() {
+            return usageBytes;
+        }
+
+        public long getCacheBytes() {
+            return cacheBytes;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.io.Serializable;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * A browser detected on an agent, as reported by its Selenium node or found on the agent itself.
+ */
+public class BrowserInfo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final String version;
+
+    public BrowserInfo(String name, String version) {
+        this.name = name.toLowerCase(Locale.ROOT);
+        this.version = version != null && !version.isBlank() ? version.trim() : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getMajorVersion() {
+        if (version == null) {
+            return null;
+        }
+        int dot = version.indexOf('.');
+        return dot > 0 ? version.substring(0, dot) : version;
+    }
+
+    /**
+     * Browser names as used by Selenium contain spaces ({@code MicrosoftEdge}, {@code internet explorer}),
+     * labels must not.
+     */
+    public String getLabelName() {
+        return "selenium-" + name.replaceAll("[^a-z0-9]+", "");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BrowserInfo other && name.equals(other.name) && Objects.equals(version, other.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, version);
+    }
+
+    @Override
+    public String toString() {
+        return version != null ? name + " " + version : name;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import jenkins.security.MasterToSlaveCallable;
+import net.sf.json.JSONObject;
+
+/**
+ * Runs on the agent and collects the browsers it offers. The slots of the local Selenium node are used first,
+ * browsers without a reported version are looked up through their command line on Unix agents.
+ */
+public class BrowserInventoryProbe extends MasterToSlaveCallable<List<BrowserInfo>, IOException> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Pattern VERSION = Pattern.compile("(\\d+(\\.\\d+)+)");
+
+    private static final Map<String, String[]> UNIX_COMMANDS = Map.of(
+            "chrome", new String[] {"google-chrome", "chromium", "chromium-browser"},
+            "firefox", new String[] {"firefox"},
+            "microsoftedge", new String[] {"microsoft-edge"});
+
+    private final int port;
+
+    public BrowserInventoryProbe(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public List<BrowserInfo> call() throws IOException {
+        Map<String, BrowserInfo> browsers = new LinkedHashMap<>();
+        try {
+            JSONObject status = SeleniumHttpClient.getJson("http://localhost:" + port + "/status");
+            JSONObject node = status.getJSONObject("value").optJSONObject("node");
+            if (node != null) {
+                for (JSONObject slot : GridSlots.getSlots(node)) {
+                    JSONObject stereotype = slot.optJSONObject("stereotype");
+                    String name = GridSlots.getBrowserName(slot);
+                    if (!name.isEmpty()) {
+                        String version = stereotype != null ? stereotype.optString("browserVersion", null) : null;
+                        browsers.putIfAbsent(name.toLowerCase(Locale.ROOT), new BrowserInfo(name, version));
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Node not running, fall back to the command line probe
+        }
+
+        if (File.pathSeparatorChar == ':') {
+            for (Map.Entry<String, String[]> entry : UNIX_COMMANDS.entrySet()) {
+                BrowserInfo known = browsers.get(entry.getKey());
+                if (known != null && known.getVersion() != null) {
+                    continue;
+                }
+                for (String command : entry.getValue()) {
+                    String version = probeVersion(command);
+                    if (version != null) {
+                        browsers.put(entry.getKey(), new BrowserInfo(entry.getKey(), version));
+                        break;
+                    }
+                }
+            }
+        }
+        // Stable order, so an unchanged inventory compares equal to the stored one
+        List<BrowserInfo> result = new ArrayList<>(browsers.values());
+        result.sort(Comparator.comparing(BrowserInfo::getName));
+        return result;
+    }
+
+    private static String probeVersion(String command) {
+        try {
+            Process process = new ProcessBuilder(command, "--version")
+                    .redirectErrorStream(true)
+                    .start();
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return null;
+            }
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            Matcher matcher = VERSION.matcher(output);
+            return process.exitValue() == 0 && matcher.find() ? matcher.group(1) : null;
+        } catch (IOException e) {
+            // Browser not installed
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.init.Terminator;
+import hudson.model.Computer;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.FormValidation;
+import hudson.util.NamingThreadFactory;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.HttpResponse;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Starts or stops the Selenium nodes of many agents in parallel.
+ * Each operation gets an id under which the per-agent progress can be polled.
+ */
+public class BulkNodeOperation {
+
+    private static final Logger LOGGER = Logger.getLogger(BulkNodeOperation.class.getName());
+
+    private static final int MAX_PARALLEL =
+            SystemProperties.getInteger(BulkNodeOperation.class.getName() + ".maxParallel", 8);
+    private static final int MAX_REMEMBERED_OPERATIONS = 20;
+
+    private static final Map<String, BulkNodeOperation> operations = new LinkedHashMap<>();
+
+    private static ExecutorService executor;
+
+    public enum Type {
+        START,
+        STOP
+    }
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Type type;
+    private final long created = System.currentTimeMillis();
+    private final Map<String, AgentProgress> progress = new LinkedHashMap<>();
+
+    private BulkNodeOperation(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Queues the operation for all given agents. The calls run as the requesting user.
+     */
+    public static BulkNodeOperation submit(Type type, List<Computer> computers) {
+        BulkNodeOperation operation = new BulkNodeOperation(type);
+        Authentication auth = Jenkins.getAuthentication2();
+        for (Computer computer : computers) {
+            operation.progress.put(computer.getName(), new AgentProgress());
+        }
+        remember(operation);
+
+        for (Computer computer : computers) {
+            getExecutor().submit(() -> {
+                try (ACLContext ctx = ACL.as2(auth)) {
+                    operation.run(computer);
+                }
+            });
+        }
+        return operation;
+    }
+
+    public static synchronized BulkNodeOperation get(String id) {
+        return operations.get(id);
+    }
+
+    /**
+     * Keeps the operation for status queries. Beyond {@link #MAX_REMEMBERED_OPERATIONS} the oldest finished
+     * operations are forgotten; running ones stay, so their status never turns unknown while they run.
+     */
+    private static synchronized void remember(BulkNodeOperation operation) {
+        operations.put(operation.id, operation);
+        Iterator<BulkNodeOperation> it = operations.values().iterator();
+        while (operations.size() > MAX_REMEMBERED_OPERATIONS && it.hasNext()) {
+            if (it.next().isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(
+                    MAX_PARALLEL, new NamingThreadFactory(new DaemonThreadFactory(), "SeleniumBulkNodeOperation"));
+        }
+        return executor;
+    }
+
+    @Terminator
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void run(Computer computer) {
+        AgentProgress agentProgress = progress.get(computer.getName());
+        agentProgress.update(Status.RUNNING, null);
+        long start = System.currentTimeMillis();
+        try {
+            SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+            if (action == null) {
+                agentProgress.update(Status.FAILED, "Selenium action not found");
+                return;
+            }
+            action.addNodeRestartLog(
+                    "Bulk " + type.name().toLowerCase(Locale.ROOT) + " requested (operation " + id + ")");
+            HttpResponse result = type == Type.START ? action.doStartNode() : action.doStopNode();
+            if (SeleniumAgentAction.isError(result)) {
+                agentProgress.update(Status.FAILED, ((FormValidation) result).getMessage());
+            } else {
+                agentProgress.update(Status.SUCCEEDED, null);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Bulk " + type + " failed for " + computer.getName(), e);
+            agentProgress.update(Status.FAILED, e.getMessage());
+        } finally {
+            agentProgress.durationMillis = System.currentTimeMillis() - start;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isDone() {
+        return progress.values().stream().allMatch(p -> p.status == Status.SUCCEEDED || p.status == Status.FAILED);
+    }
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("id", id);
+        json.put("operation", type.name());
+        json.put("created", created);
+        json.put("done", isDone());
+
+        JSONArray agents = new JSONArray();
+        for (Map.Entry<String, AgentProgress> entry : progress.entrySet()) {
+            AgentProgress p = entry.getValue();
+            JSONObject agent = new JSONObject();
+            agent.put("name", entry.getKey());
+            agent.put("status", p.status.name());
+            if (p.message != null) {
+                agent.put("message", p.message);
+            }
+            agent.put("durationMillis", p.durationMillis);
+            agents.add(agent);
+        }
+        json.put("agents", agents);
+        return json;
+    }
+
+    private static final class AgentProgress {
+        private volatile Status status = Status.PENDING;
+        private volatile String message;
+        private volatile long durationMillis;
+
+        void update(Status status, String message) {
+            this.message = message;
+            this.status = status;
+        }
+    }
+}
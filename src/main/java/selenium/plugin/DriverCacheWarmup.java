@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import jenkins.security.MasterToSlaveCallable;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * Runs on the agent and resolves the drivers (and browsers, where Selenium Manager provides them) for the given
+ * browsers into a cache directory, using the Selenium Manager binary bundled in the Selenium server JAR.
+ * All browsers share one time budget, so the node start is delayed by at most {@link #TIMEOUT_SECONDS}.
+ */
+public class DriverCacheWarmup extends MasterToSlaveCallable<DriverCacheWarmup.Result, IOException> {
+
+    private static final long serialVersionUID = 1L;
+
+    static final long TIMEOUT_SECONDS = 120;
+
+    private final String jarPath;
+    private final String cachePath;
+    private final List<String> browsers;
+
+    public DriverCacheWarmup(String jarPath, String cachePath, List<String> browsers) {
+        this.jarPath = jarPath;
+        this.cachePath = cachePath;
+        this.browsers = new ArrayList<>(browsers);
+    }
+
+    @Override
+    public Result call() throws IOException {
+        Result result = new Result();
+        File manager = extractManager();
+        if (manager == null) {
+            result.add("No Selenium Manager for " + System.getProperty("os.name") + " in " + jarPath, false);
+            return result;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        for (String browser : browsers) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                result.add(browser + ": skipped, time budget used up", false);
+                continue;
+            }
+            String error = resolve(manager, browser, remaining, result);
+            if (error != null) {
+                result.add(browser + ": " + error, false);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Extracts Selenium Manager next to the JAR, once per JAR, so it matches the server version.
+     */
+    private File extractManager() throws IOException {
+        String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+        String entryName;
+        if (os.contains("win")) {
+            entryName = "org/openqa/selenium/manager/windows/selenium-manager.exe";
+        } else if (os.contains("mac")) {
+            entryName = "org/openqa/selenium/manager/macos/selenium-manager";
+        } else {
+            entryName = "org/openqa/selenium/manager/linux/selenium-manager";
+        }
+        File jar = new File(jarPath);
+        String suffix = entryName.endsWith(".exe") ? ".exe" : "";
+        File target = new File(jar.getParentFile(), jar.getName().replace(".jar", "") + "-manager" + suffix);
+        if (target.isFile()) {
+            return target;
+        }
+        try (ZipFile zip = new ZipFile(jar)) {
+            ZipEntry entry = zip.getEntry(entryName);
+            if (entry == null) {
+                return null;
+            }
+            File part = new File(target.getPath() + ".part");
+            try (InputStream in = zip.getInputStream(entry)) {
+                Files.copy(in, part.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (!part.setExecutable(true)) {
+                throw new IOException("Could not make " + part + " executable");
+            }
+            Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    /**
+     * @return {@code null} if the browser was resolved, otherwise why it was not
+     */
+    private String resolve(File manager, String browser, long timeoutNanos, Result result) {
+        File output = null;
+        try {
+            // Output goes to a file so the timeout also holds when the process stops writing
+            output = File.createTempFile("selenium-manager", ".json");
+            Process process = new ProcessBuilder(
+                            manager.getAbsolutePath(),
+                            "--browser",
+                            browser,
+                            "--cache-path",
+                            cachePath,
+                            "--output",
+                            "json")
+                    .redirectOutput(output)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!process.waitFor(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                process.destroyForcibly();
+                return "timed out";
+            }
+            String json = Files.readString(output.toPath(), StandardCharsets.UTF_8);
+            JSONObject resolved = JSONObject.fromObject(json).getJSONObject("result");
+            if (process.exitValue() != 0 || resolved.optInt("code", 0) != 0) {
+                return "failed (" + resolved.optString("message", "exit code " + process.exitValue()) + ")";
+            }
+            result.add(browser + ": " + resolved.optString("driver_path", "resolved"), true);
+            return null;
+        } catch (IOException | JSONException e) {
+            return "failed (" + e.getMessage() + ")";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        } finally {
+            if (output != null) {
+                try {
+                    Files.deleteIfExists(output.toPath());
+                } catch (IOException e) {
+                    // Left in the temp directory
+                }
+            }
+        }
+    }
+
+    public static class Result implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> lines = new ArrayList<>();
+        private boolean complete = true;
+
+        void add(String line, boolean resolved) {
+            lines.add(line);
+            complete &= resolved;
+        }
+
+        /**
+         * @return one line per browser describing the result
+         */
+        public List<String> getLines() {
+            return lines;
+        }
+
+        /**
+         * @return whether every requested browser was resolved
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+}
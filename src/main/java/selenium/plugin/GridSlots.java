@@ -0,0 +1,148 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * Helpers to read slot information from the hub {@code /status} response, and short-lived slot
+ * reservations so concurrent builds waiting for the same browser do not all claim the same free slots.
+ */
+public final class GridSlots {
+
+    /**
+     * A reservation only needs to bridge the time until the build actually opened its sessions,
+     * after that the hub reports the slots as occupied.
+     */
+    static final long RESERVATION_GRACE_MILLIS = 2 * 60 * 1000L;
+
+    private static final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    private GridSlots() {}
+
+    public static List<JSONObject> getNodes(JSONObject status) {
+        List<JSONObject> nodes = new ArrayList<>();
+        JSONObject value = status.optJSONObject("value");
+        JSONArray array = value != null ? value.optJSONArray("nodes") : null;
+        if (array != null) {
+            for (Object node : array) {
+                if (node instanceof JSONObject json) {
+                    nodes.add(json);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    public static List<JSONObject> getSlots(JSONObject node) {
+        List<JSONObject> slots = new ArrayList<>();
+        JSONArray array = node.optJSONArray("slots");
+        if (array != null) {
+            for (Object slot : array) {
+                if (slot instanceof JSONObject json) {
+                    slots.add(json);
+                }
+            }
+        }
+        return slots;
+    }
+
+    public static boolean isUp(JSONObject node) {
+        return "UP".equals(node.optString("availability"));
+    }
+
+    public static boolean isFree(JSONObject slot) {
+        JSONObject session = slot.optJSONObject("session");
+        return session == null || session.isNullObject();
+    }
+
+    public static String getBrowserName(JSONObject slot) {
+        JSONObject stereotype = slot.optJSONObject("stereotype");
+        return stereotype != null ? stereotype.optString("browserName", "") : "";
+    }
+
+    /**
+     * @param browserName browser to count, {@code null} or empty for any browser
+     */
+    public static int countFreeSlots(JSONObject status, String browserName) {
+        int free = 0;
+        for (JSONObject node : getNodes(status)) {
+            if (!isUp(node)) {
+                continue;
+            }
+            for (JSONObject slot : getSlots(node)) {
+                if (isFree(slot) && matchesBrowser(slot, browserName)) {
+                    free++;
+                }
+            }
+        }
+        return free;
+    }
+
+    private static boolean matchesBrowser(JSONObject slot, String browserName) {
+        return browserName == null || browserName.isEmpty() || browserName.equalsIgnoreCase(getBrowserName(slot));
+    }
+
+    /**
+     * Reserves slots if enough of them are free after subtracting the reservations still in their grace period.
+     *
+     * @return the reservation id, or {@code null} if not enough slots are available
+     */
+    public static synchronized String tryReserve(JSONObject status, String browserName, int slots) {
+        long now = System.currentTimeMillis();
+        int reserved = 0;
+        Iterator<Reservation> it = reservations.values().iterator();
+        while (it.hasNext()) {
+            Reservation reservation = it.next();
+            if (now - reservation.created > RESERVATION_GRACE_MILLIS) {
+                it.remove();
+            } else if (matchesBrowserName(reservation.browserName, browserName)) {
+                reserved += reservation.slots;
+            }
+        }
+
+        if (countFreeSlots(status, browserName) - reserved < slots) {
+            return null;
+        }
+        String id = UUID.randomUUID().toString();
+        reservations.put(id, new Reservation(browserName, slots, now));
+        return id;
+    }
+
+    public static void release(String reservationId) {
+        if (reservationId != null) {
+            reservations.remove(reservationId);
+        }
+    }
+
+    private static boolean matchesBrowserName(String reserved, String requested) {
+        // Reservations without a browser compete with every request and the other way round
+        return reserved == null
+                || reserved.isEmpty()
+                || requested == null
+                || requested.isEmpty()
+                || reserved.equalsIgnoreCase(requested);
+    }
+
+    private record Reservation(String browserName, int slots, long created) {}
+}
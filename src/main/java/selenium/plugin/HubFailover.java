@@ -0,0 +1,237 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Util;
+import hudson.init.Terminator;
+import hudson.model.Computer;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.security.ImpersonatingExecutorService;
+import jenkins.util.SystemProperties;
+
+/**
+ * Active/standby pair of the controller hub and a standby hub, either run by the plugin on a designated agent or
+ * run externally. When the controller hub is unreachable for several checks in a row and the standby hub answers,
+ * the nodes are restarted with {@code --hub} pointing to the standby hub. They stay there until the standby hub
+ * fails or an administrator switches back, so a flapping controller hub does not move the nodes back and forth.
+ * <p>
+ * The restarts run in a pool of their own, so moving a large fleet neither waits for other background work nor
+ * holds it up.
+ */
+public class HubFailover {
+
+    private static final Logger LOGGER = Logger.getLogger(HubFailover.class.getName());
+
+    private static final int FAILURE_THRESHOLD =
+            SystemProperties.getInteger(HubFailover.class.getName() + ".failureThreshold", 3);
+
+    private static final int RESTART_PARALLELISM =
+            SystemProperties.getInteger(HubFailover.class.getName() + ".restartParallelism", 16);
+
+    private static ExecutorService restartExecutor;
+
+    private final SeleniumGlobalProperty globalProperty;
+    private final StandbyHub standbyHub = new StandbyHub();
+    private final RestartBackoff standbyBackoff = RestartBackoff.forHub();
+    // Agents with a restart waiting for a thread, a further switch does not queue a second one
+    private final Set<String> queuedRestarts = ConcurrentHashMap.newKeySet();
+
+    private int primaryFailures;
+    private volatile boolean standbyReachable;
+    private volatile Date lastSwitch;
+
+    public HubFailover(SeleniumGlobalProperty globalProperty) {
+        this.globalProperty = globalProperty;
+    }
+
+    /**
+     * Keeps the standby hub running and switches the nodes between the hubs if needed.
+     */
+    public synchronized void check() {
+        String standbyUrl = Util.fixEmptyAndTrim(globalProperty.getStandbyHubUrl());
+        if (standbyUrl == null) {
+            stopStandbyHub();
+            // isStandbyHubActive() is false without a URL, although the nodes may still be on the standby hub
+            if (globalProperty.isStandbyHubSelected()) {
+                switchHub(false, "Standby hub was removed from the configuration");
+            }
+            return;
+        }
+        if (!globalProperty.getHubActive()) {
+            return;
+        }
+
+        standbyReachable = isReachable(standbyUrl);
+        if (!standbyReachable) {
+            ensureStandbyHub(standbyUrl);
+        }
+
+        boolean primaryReachable = globalProperty.isHubReachable();
+        if (!globalProperty.isStandbyHubActive()) {
+            primaryFailures = primaryReachable ? 0 : primaryFailures + 1;
+            if (primaryFailures >= FAILURE_THRESHOLD && standbyReachable) {
+                switchHub(true, "Controller hub not reachable in " + primaryFailures + " checks");
+            }
+        } else if (!standbyReachable && primaryReachable) {
+            switchHub(false, "Standby hub not reachable while the controller hub is");
+        }
+    }
+
+    /**
+     * Moves the nodes back to the controller hub on request of an administrator.
+     */
+    public void useControllerHub() {
+        useControllerHub("Switched back to the controller hub manually");
+    }
+
+    /**
+     * Moves the nodes back to the controller hub if they are on the standby hub, e.g. before the standby hub is
+     * removed from or replaced in the configuration.
+     */
+    public synchronized void useControllerHub(String reason) {
+        if (globalProperty.isStandbyHubSelected()) {
+            switchHub(false, reason);
+        }
+    }
+
+    /**
+     * Stops the standby hub run by the plugin, e.g. after the standby agent or the Selenium version changed.
+     * The next check starts it again where it is configured.
+     */
+    public synchronized void restartStandbyHub() {
+        stopStandbyHub();
+        standbyBackoff.reset();
+    }
+
+    private void switchHub(boolean toStandby, String reason) {
+        primaryFailures = 0;
+        lastSwitch = new Date();
+        globalProperty.setStandbyHubActive(toStandby);
+        String hubUrl = globalProperty.getHubUrl();
+        LOGGER.log(Level.WARNING, "Selenium nodes are moved to {0}: {1}", new Object[] {hubUrl, reason});
+        globalProperty.addHubRestartLog("Moving nodes to " + (toStandby ? "standby" : "controller") + " hub "
+                + hubUrl + ": " + reason);
+        SeleniumEventJournal.record(
+                SeleniumEvent.HUB,
+                toStandby ? SeleniumEvent.Type.HUB_FAILOVER : SeleniumEvent.Type.HUB_FAILBACK,
+                "Nodes moved to " + hubUrl + ": " + reason);
+
+        for (Computer computer : globalProperty.getAgents()) {
+            SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+            String name = computer.getName();
+            if (action != null
+                    && computer.isOnline()
+                    && action.isNodeActiveConfigured()
+                    && queuedRestarts.add(name)) {
+                getRestartExecutor().execute(() -> {
+                    queuedRestarts.remove(name);
+                    // The hub may have changed again while the restart was queued
+                    action.restartForHubChange(globalProperty.getHubUrl());
+                });
+            }
+        }
+    }
+
+    private static synchronized ExecutorService getRestartExecutor() {
+        if (restartExecutor == null) {
+            restartExecutor = new ImpersonatingExecutorService(
+                    Executors.newFixedThreadPool(
+                            RESTART_PARALLELISM,
+                            new NamingThreadFactory(new DaemonThreadFactory(), "SeleniumHubFailoverRestart")),
+                    ACL.SYSTEM2);
+        }
+        return restartExecutor;
+    }
+
+    @Terminator
+    public static synchronized void shutdown() {
+        if (restartExecutor != null) {
+            restartExecutor.shutdownNow();
+            restartExecutor = null;
+        }
+    }
+
+    private void ensureStandbyHub(String standbyUrl) {
+        String agentName = Util.fixEmptyAndTrim(globalProperty.getStandbyHubAgent());
+        String version = globalProperty.getSeleniumVersion();
+        if (agentName == null || version == null) {
+            return;
+        }
+        Computer computer = Jenkins.get().getComputer(agentName);
+        if (computer == null || computer.isOffline()) {
+            LOGGER.log(Level.FINE, "Standby agent {0} is not connected", agentName);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            if (standbyHub.isRunning(agentName)
+                    || standbyBackoff.isQuarantined()
+                    || !standbyBackoff.isRestartAllowed(now)) {
+                // Still booting or restarts are held back after repeated failures
+                return;
+            }
+            File serverJar = globalProperty.getServerJar(version);
+            int port = new URL(standbyUrl).getPort();
+            standbyHub.start(computer, port > 0 ? port : 4444, version, serverJar, globalProperty::addHubRestartLog);
+            standbyBackoff.recordRestart(now, null);
+        } catch (IOException e) {
+            standbyBackoff.recordRestart(now, e.getMessage());
+            globalProperty.addHubRestartLog("Could not start standby hub on " + agentName + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stopStandbyHub() {
+        try {
+            standbyHub.stop();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not stop standby hub", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static boolean isReachable(String hubUrl) {
+        try {
+            SeleniumHttpClient.get(hubUrl + "/status");
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public boolean isStandbyReachable() {
+        return standbyReachable;
+    }
+
+    public Date getLastSwitch() {
+        return lastSwitch;
+    }
+}
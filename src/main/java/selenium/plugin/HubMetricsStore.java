@@ -0,0 +1,261 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.XmlFile;
+import hudson.init.Terminator;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * Round-robin store of hub metrics with one sample per minute for the last 24 hours. Memory is fixed: the grid
+ * series are preallocated arrays, and per node only the last hour is kept for a bounded number of nodes.
+ * The store is written to {@code JENKINS_HOME/selenium-hub-metrics.xml}, so the history survives restarts.
+ */
+public final class HubMetricsStore {
+
+    private static final Logger LOGGER = Logger.getLogger(HubMetricsStore.class.getName());
+
+    static final int CAPACITY = 24 * 60;
+
+    static final int NODE_WINDOW = 60;
+
+    private static final int MAX_NODES = 500;
+
+    private static final long NODE_EXPIRY_MILLIS = 60 * 60 * 1000L;
+
+    private static final int SAVE_EVERY_SAMPLES = 15;
+
+    /** Samples over which the session rate for the estimated queue wait is averaged. */
+    private static final int RATE_WINDOW = 5;
+
+    private static HubMetricsStore instance;
+
+    private long[] timestamps = new long[CAPACITY];
+    private int[] sessionsStarted = new int[CAPACITY];
+    private int[] queueSize = new int[CAPACITY];
+    private int[] busySlots = new int[CAPACITY];
+    private int[] totalSlots = new int[CAPACITY];
+    private int next;
+    private int size;
+    private Map<String, NodeUsage> nodes = new LinkedHashMap<>();
+
+    private transient int unsaved;
+
+    private HubMetricsStore() {}
+
+    public static synchronized HubMetricsStore get() {
+        if (instance == null) {
+            instance = load();
+        }
+        return instance;
+    }
+
+    private static HubMetricsStore load() {
+        HubMetricsStore store = new HubMetricsStore();
+        XmlFile file = getFile();
+        if (file.exists()) {
+            try {
+                file.unmarshal(store);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not load Selenium hub metrics, starting empty", e);
+                return new HubMetricsStore();
+            }
+            if (!store.isConsistent()) {
+                LOGGER.log(Level.WARNING, "Selenium hub metrics have an unexpected layout, starting empty");
+                return new HubMetricsStore();
+            }
+        }
+        return store;
+    }
+
+    private boolean isConsistent() {
+        return timestamps != null
+                && timestamps.length == CAPACITY
+                && sessionsStarted != null
+                && sessionsStarted.length == CAPACITY
+                && queueSize != null
+                && queueSize.length == CAPACITY
+                && busySlots != null
+                && busySlots.length == CAPACITY
+                && totalSlots != null
+                && totalSlots.length == CAPACITY
+                && next >= 0
+                && next < CAPACITY
+                && size >= 0
+                && size <= CAPACITY
+                && nodes != null;
+    }
+
+    private static XmlFile getFile() {
+        return new XmlFile(new File(Jenkins.get().getRootDir(), "selenium-hub-metrics.xml"));
+    }
+
+    /**
+     * @param queue average number of requests waiting in the session queue, -1 if the hub did not report it
+     * @param nodeSlots busy and total slots per node URI
+     */
+    synchronized void add(long time, int started, int queue, int busy, int total, Map<String, int[]> nodeSlots) {
+        timestamps[next] = time;
+        sessionsStarted[next] = started;
+        queueSize[next] = queue;
+        busySlots[next] = busy;
+        totalSlots[next] = total;
+        next = (next + 1) % CAPACITY;
+        size = Math.min(size + 1, CAPACITY);
+
+        for (Map.Entry<String, int[]> entry : nodeSlots.entrySet()) {
+            NodeUsage usage = nodes.get(entry.getKey());
+            if (usage == null) {
+                if (nodes.size() >= MAX_NODES) {
+                    continue;
+                }
+                usage = new NodeUsage();
+                nodes.put(entry.getKey(), usage);
+            }
+            usage.add(time, entry.getValue()[0], entry.getValue()[1]);
+        }
+        nodes.values().removeIf(usage -> time - usage.lastSeen > NODE_EXPIRY_MILLIS);
+
+        if (++unsaved >= SAVE_EVERY_SAMPLES) {
+            save();
+        }
+    }
+
+    synchronized void save() {
+        try {
+            getFile().write(this);
+            unsaved = 0;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save Selenium hub metrics", e);
+        }
+    }
+
+    @Terminator
+    public static synchronized void shutdown() {
+        if (instance != null && instance.unsaved > 0) {
+            instance.save();
+        }
+    }
+
+    /**
+     * Series of the last minutes in chronological order, and the utilization per node over the last hour.
+     */
+    public synchronized JSONObject toJson(int minutes) {
+        int count = Math.min(size, Math.max(1, minutes));
+        JSONArray time = new JSONArray();
+        JSONArray started = new JSONArray();
+        JSONArray queue = new JSONArray();
+        JSONArray waitMillis = new JSONArray();
+        JSONArray utilization = new JSONArray();
+        for (int i = count - 1; i >= 0; i--) {
+            int index = indexOf(i);
+            time.add(timestamps[index]);
+            started.add(sessionsStarted[index]);
+            queue.add(queueSize[index]);
+            waitMillis.add(estimateWaitMillis(i));
+            utilization.add(totalSlots[index] > 0 ? 100 * busySlots[index] / totalSlots[index] : 0);
+        }
+
+        JSONArray nodeRows = new JSONArray();
+        for (Map.Entry<String, NodeUsage> entry : nodes.entrySet()) {
+            JSONObject row = new JSONObject();
+            row.put("uri", entry.getKey());
+            row.put("current", entry.getValue().getCurrentPercent());
+            row.put("average", entry.getValue().getAveragePercent());
+            nodeRows.add(row);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("time", time);
+        json.put("sessionsStarted", started);
+        json.put("queueSize", queue);
+        json.put("estimatedWaitMillis", waitMillis);
+        json.put("utilization", utilization);
+        json.put("nodes", nodeRows);
+        return json;
+    }
+
+    /**
+     * Index of the sample {@code age} minutes before the newest one.
+     */
+    private int indexOf(int age) {
+        return Math.floorMod(next - 1 - age, CAPACITY);
+    }
+
+    /**
+     * Little's law: the average queue length divided by the rate at which sessions start. Without any started
+     * sessions a waiting request has waited at least the whole window.
+     */
+    private long estimateWaitMillis(int age) {
+        int queue = queueSize[indexOf(age)];
+        if (queue <= 0) {
+            return queue;
+        }
+        int samples = Math.min(RATE_WINDOW, size - age);
+        long startedInWindow = 0;
+        for (int i = age; i < age + samples; i++) {
+            startedInWindow += sessionsStarted[indexOf(i)];
+        }
+        long windowMillis = samples * 60_000L;
+        if (startedInWindow == 0) {
+            return windowMillis;
+        }
+        return queue * windowMillis / startedInWindow;
+    }
+
+    /**
+     * Busy and total slots of one node for the last hour.
+     */
+    private static final class NodeUsage {
+
+        private int[] busy = new int[NODE_WINDOW];
+        private int[] total = new int[NODE_WINDOW];
+        private int next;
+        private int size;
+        private long lastSeen;
+
+        void add(long time, int busySlots, int totalSlots) {
+            busy[next] = busySlots;
+            total[next] = totalSlots;
+            next = (next + 1) % NODE_WINDOW;
+            size = Math.min(size + 1, NODE_WINDOW);
+            lastSeen = time;
+        }
+
+        int getCurrentPercent() {
+            int last = Math.floorMod(next - 1, NODE_WINDOW);
+            return size > 0 && total[last] > 0 ? 100 * busy[last] / total[last] : 0;
+        }
+
+        int getAveragePercent() {
+            long busySum = 0;
+            long totalSum = 0;
+            for (int i = 0; i < size; i++) {
+                busySum += busy[i];
+                totalSum += total[i];
+            }
+            return totalSum > 0 ? (int) (100 * busySum / totalSum) : 0;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Tuning of the Selenium Hub, rendered into the TOML file the hub is started with ({@code hub --config}). They
+ * decide how fast queued session requests are matched to free slots under burst load.
+ */
+public class HubSettings extends AbstractDescribableImpl<HubSettings> {
+
+    static final int DEFAULT_SESSION_REQUEST_TIMEOUT = 300;
+    static final int DEFAULT_SESSION_RETRY_INTERVAL = 15;
+    static final int DEFAULT_HEALTHCHECK_INTERVAL = 120;
+
+    private static final int MAX_SESSION_REQUEST_TIMEOUT = 3600;
+    private static final int MAX_SESSION_RETRY_INTERVAL = 60_000;
+    private static final int MAX_HEALTHCHECK_INTERVAL = 3600;
+    private static final int MAX_THREADS = 1024;
+
+    private int sessionRequestTimeout = DEFAULT_SESSION_REQUEST_TIMEOUT;
+    private int sessionRetryInterval = DEFAULT_SESSION_RETRY_INTERVAL;
+    private int healthcheckInterval = DEFAULT_HEALTHCHECK_INTERVAL;
+    private boolean rejectUnsupportedCaps;
+    private int newSessionThreadPoolSize;
+    private int maxThreads;
+
+    @DataBoundConstructor
+    public HubSettings() {}
+
+    public int getSessionRequestTimeout() {
+        return sessionRequestTimeout;
+    }
+
+    /**
+     * @param sessionRequestTimeout seconds a request may wait in the session queue before it fails
+     */
+    @DataBoundSetter
+    public void setSessionRequestTimeout(int sessionRequestTimeout) {
+        this.sessionRequestTimeout = sessionRequestTimeout;
+    }
+
+    public int getSessionRetryInterval() {
+        return sessionRetryInterval;
+    }
+
+    /**
+     * @param sessionRetryInterval milliseconds between attempts to match a queued request while all slots are busy
+     */
+    @DataBoundSetter
+    public void setSessionRetryInterval(int sessionRetryInterval) {
+        this.sessionRetryInterval = sessionRetryInterval;
+    }
+
+    public int getHealthcheckInterval() {
+        return healthcheckInterval;
+    }
+
+    /**
+     * @param healthcheckInterval seconds between the health checks of the registered nodes
+     */
+    @DataBoundSetter
+    public void setHealthcheckInterval(int healthcheckInterval) {
+        this.healthcheckInterval = healthcheckInterval;
+    }
+
+    public boolean isRejectUnsupportedCaps() {
+        return rejectUnsupportedCaps;
+    }
+
+    /**
+     * @param rejectUnsupportedCaps fail requests no node can serve right away instead of queueing them
+     */
+    @DataBoundSetter
+    public void setRejectUnsupportedCaps(boolean rejectUnsupportedCaps) {
+        this.rejectUnsupportedCaps = rejectUnsupportedCaps;
+    }
+
+    public int getNewSessionThreadPoolSize() {
+        return newSessionThreadPoolSize;
+    }
+
+    /**
+     * @param newSessionThreadPoolSize threads of the distributor creating sessions, the Selenium default if 0
+     */
+    @DataBoundSetter
+    public void setNewSessionThreadPoolSize(int newSessionThreadPoolSize) {
+        this.newSessionThreadPoolSize = newSessionThreadPoolSize;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * @param maxThreads threads of the hub's HTTP server, the Selenium default if 0
+     */
+    @DataBoundSetter
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * @return the first invalid value, {@link FormValidation#ok()} if all are valid
+     */
+    public FormValidation validate() {
+        FormValidation[] checks = {
+            checkRange(sessionRequestTimeout, 1, MAX_SESSION_REQUEST_TIMEOUT),
+            checkRange(sessionRetryInterval, 1, MAX_SESSION_RETRY_INTERVAL),
+            checkRange(healthcheckInterval, 1, MAX_HEALTHCHECK_INTERVAL),
+            checkRange(newSessionThreadPoolSize, 0, MAX_THREADS),
+            checkRange(maxThreads, 0, MAX_THREADS)
+        };
+        for (FormValidation check : checks) {
+            if (check.kind == FormValidation.Kind.ERROR) {
+                return check;
+            }
+        }
+        return FormValidation.ok();
+    }
+
+    static FormValidation checkRange(int value, int min, int max) {
+        if (value < min || value > max) {
+            return FormValidation.error(Messages.HubSettings_error_range(min, max));
+        }
+        return FormValidation.ok();
+    }
+
+    /**
+     * Renders the settings as a Selenium TOML configuration, leaving out thread pools that keep their default.
+     */
+    public String toToml() {
+        StringBuilder toml = new StringBuilder();
+        toml.append("# Written by the Selenium plugin from the hub settings, changes are overwritten\n");
+        toml.append("[sessionqueue]\n");
+        toml.append("session-request-timeout = ").append(sessionRequestTimeout).append('\n');
+        toml.append("session-retry-interval = ").append(sessionRetryInterval).append('\n');
+        toml.append("\n[distributor]\n");
+        toml.append("healthcheck-interval = ").append(healthcheckInterval).append('\n');
+        toml.append("reject-unsupported-caps = ").append(rejectUnsupportedCaps).append('\n');
+        if (newSessionThreadPoolSize > 0) {
+            toml.append("newsession-threadpool-size = ").append(newSessionThreadPoolSize).append('\n');
+        }
+        if (maxThreads > 0) {
+            toml.append("\n[server]\n");
+            toml.append("max-threads = ").append(maxThreads).append('\n');
+        }
+        return toml.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "hub settings (session-request-timeout " + sessionRequestTimeout + " s, session-retry-interval "
+                + sessionRetryInterval + " ms, healthcheck-interval " + healthcheckInterval
+                + " s, reject-unsupported-caps " + rejectUnsupportedCaps + ")";
+    }
+
+    @Extension
+    public static class DescriptorImpl extends Descriptor<HubSettings> {
+
+        @Override
+        public String getDisplayName() {
+            return Messages.HubSettings_displayName();
+        }
+
+        @POST
+        public FormValidation doCheckSessionRequestTimeout(@QueryParameter int value) {
+            Jenkins.get().checkPermission(Jenkins.MANAGE);
+            return checkRange(value, 1, MAX_SESSION_REQUEST_TIMEOUT);
+        }
+
+        @POST
+        public FormValidation doCheckSessionRetryInterval(@QueryParameter int value) {
+            Jenkins.get().checkPermission(Jenkins.MANAGE);
+            return checkRange(value, 1, MAX_SESSION_RETRY_INTERVAL);
+        }
+
+        @POST
+        public FormValidation doCheckHealthcheckInterval(@QueryParameter int value) {
+            Jenkins.get().checkPermission(Jenkins.MANAGE);
+            return checkRange(value, 1, MAX_HEALTHCHECK_INTERVAL);
+        }
+
+        @POST
+        public FormValidation doCheckNewSessionThreadPoolSize(@QueryParameter int value) {
+            Jenkins.get().checkPermission(Jenkins.MANAGE);
+            return checkRange(value, 0, MAX_THREADS);
+        }
+
+        @POST
+        public FormValidation doCheckMaxThreads(@QueryParameter int value) {
+            Jenkins.get().checkPermission(Jenkins.MANAGE);
+            return checkRange(value, 0, MAX_THREADS);
+        }
+    }
+}
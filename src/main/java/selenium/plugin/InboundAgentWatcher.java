@@ -17,11 +17,13 @@ package selenium.plugin;
 
 import hudson.Extension;
 import hudson.model.Computer;
+import hudson.model.ManagementLink;
 import hudson.model.Node;
 import hudson.model.TaskListener;
 import hudson.slaves.ComputerListener;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.model.Jenkins;
@@ -31,6 +33,11 @@ public class InboundAgentWatcher extends ComputerListener {
 
     private static final Logger LOGGER = Logger.getLogger(InboundAgentWatcher.class.getName());
 
+    // Collapses a burst of configuration changes into one check per agent
+    private static final long CONFIGURATION_CHANGE_DELAY_MILLIS = 1000;
+    private static final long PROBE_TIMEOUT_MILLIS = 5000;
+    private static final int MAX_PROBE_ATTEMPTS = 10;
+
     @Override
     public void onOnline(Computer c, TaskListener listener) {
         LOGGER.log(Level.FINE, "Agent online: {0}", c.getName());
@@ -65,7 +72,9 @@ public class InboundAgentWatcher extends ComputerListener {
             return;
         }
 
-        if (!c.isOnline() || !c.isIdle()) {
+        // Do not wait for the agent to become idle: an ephemeral agent gets its first build right away and the
+        // node should come up in parallel with it
+        if (!c.isOnline()) {
             return;
         }
 
@@ -75,9 +84,12 @@ public class InboundAgentWatcher extends ComputerListener {
             return;
         }
 
+        applyNodePolicy(c, action);
+
         if (action.isNodeActiveConfigured()) {
             LOGGER.log(Level.FINE, "Starting Selenium node on: {0}", c.getDisplayName());
-            action.checkAndRestartNodeIfNeeded();
+            // The channel is up when onOnline fires, so check right away instead of blocking the listener
+            scheduleNodeCheck(c, action, 0, 0);
         }
     }
 
@@ -140,67 +152,70 @@ public class InboundAgentWatcher extends ComputerListener {
                 continue;
             }
 
-            action.addNodeRestartLog("Starting delayed Selenium Node check (5s delay)...");
-
-            // Delay the restart to ensure the agent channel is fully established
-            new Thread(
-                            () -> {
-                                try {
-                                    LOGGER.log(
-                                            Level.INFO,
-                                            "SeleniumNodeStarter: Waiting 5s for agent to be fully ready: {0}",
-                                            computer.getName());
-                                    Thread.sleep(5000);
-
-                                    // Verify agent is still online after delay
-                                    if (!computer.isOnline()) {
-                                        LOGGER.log(
-                                                Level.WARNING,
-                                                "SeleniumNodeStarter: Agent went offline during wait: {0}",
-                                                computer.getName());
-                                        action.addNodeRestartLog(
-                                                "Agent went offline during 5s wait, aborting Selenium Node start");
-                                        return;
-                                    }
-
-                                    if (computer.getChannel() == null) {
-                                        LOGGER.log(
-                                                Level.WARNING,
-                                                "SeleniumNodeStarter: Agent channel is null after wait: {0}",
-                                                computer.getName());
-                                        action.addNodeRestartLog(
-                                                "Agent channel is null after 5s wait, aborting Selenium Node start");
-                                        return;
-                                    }
-
-                                    LOGGER.log(
-                                            Level.INFO,
-                                            "SeleniumNodeStarter: Agent ready, triggering checkAndRestartNodeIfNeeded: {0}",
-                                            computer.getName());
-                                    action.addNodeRestartLog(
-                                            "Post-Agent-Startup Trigger (InboundAgentWatcher) - Agent ready after 5s delay");
-                                    action.checkAndRestartNodeIfNeeded();
-
-                                } catch (InterruptedException e) {
-                                    Thread.currentThread().interrupt();
-                                    LOGGER.log(
-                                            Level.WARNING,
-                                            "SeleniumNodeStarter: Interrupted while waiting for agent startup: "
-                                                    + computer.getName(),
-                                            e);
-                                    action.addNodeRestartLog(
-                                            "Interrupted while waiting for agent startup: " + e.getMessage());
-                                } catch (Exception e) {
-                                    LOGGER.log(
-                                            Level.WARNING,
-                                            "SeleniumNodeStarter: Error while Post-Agent-Startup-Logic for "
-                                                    + computer.getName(),
-                                            e);
-                                    action.addNodeRestartLog("Error in Post-Agent-Startup-Logic: " + e.getMessage());
-                                }
-                            },
-                            "SeleniumNodeStarter-" + computer.getName())
-                    .start();
+            // Label changes can bring an agent under a policy
+            applyNodePolicy(computer, action);
+            scheduleNodeCheck(computer, action, CONFIGURATION_CHANGE_DELAY_MILLIS, 0);
+        }
+    }
+
+    private void applyNodePolicy(Computer computer, SeleniumAgentAction action) {
+        SeleniumGlobalProperty globalProp = ManagementLink.all().get(SeleniumGlobalProperty.class);
+        Node node = computer.getNode();
+        if (globalProp != null && node != null) {
+            action.applyNodePolicy(globalProp.getNodePolicy(node));
+        }
+    }
+
+    private void scheduleNodeCheck(Computer computer, SeleniumAgentAction action, long delayMillis, int attempt) {
+        boolean scheduled = SeleniumScheduler.scheduleBlockingOnce(
+                "node-start:" + computer.getName(),
+                () -> runNodeCheckWhenReady(computer, action, attempt),
+                delayMillis,
+                TimeUnit.MILLISECONDS);
+        if (!scheduled) {
+            LOGGER.log(Level.FINE, "scheduleNodeCheck: Check already pending for: {0}", computer.getName());
+        }
+    }
+
+    // Waits until the agent channel answers a probe call before touching the Selenium node
+    private void runNodeCheckWhenReady(Computer computer, SeleniumAgentAction action, int attempt) {
+        try {
+            if (!computer.isOnline()) {
+                LOGGER.log(Level.WARNING, "SeleniumNodeStarter: Agent went offline: {0}", computer.getName());
+                action.addNodeRestartLog("Agent went offline, aborting Selenium Node start");
+                return;
+            }
+
+            if (!AgentChannelProbe.isReady(computer, PROBE_TIMEOUT_MILLIS)) {
+                if (attempt + 1 >= MAX_PROBE_ATTEMPTS) {
+                    LOGGER.log(
+                            Level.WARNING,
+                            "SeleniumNodeStarter: Agent channel not ready after {0} probes: {1}",
+                            new Object[] {MAX_PROBE_ATTEMPTS, computer.getName()});
+                    action.addNodeRestartLog("Agent channel not ready after " + MAX_PROBE_ATTEMPTS
+                            + " probes, aborting Selenium Node start");
+                    return;
+                }
+                long delay = AgentChannelProbe.retryDelay(attempt);
+                action.addNodeRestartLog("Agent channel not ready yet, probing again in " + delay + " ms");
+                scheduleNodeCheck(computer, action, delay, attempt + 1);
+                return;
+            }
+
+            LOGGER.log(
+                    Level.INFO,
+                    "SeleniumNodeStarter: Agent ready, triggering checkAndRestartNodeIfNeeded: {0}",
+                    computer.getName());
+            action.addNodeRestartLog("Post-Agent-Startup Trigger (InboundAgentWatcher) - Agent channel ready after "
+                    + (attempt + 1) + " probe(s)");
+            action.checkAndRestartNodeIfNeeded();
+
+        } catch (Exception e) {
+            LOGGER.log(
+                    Level.WARNING,
+                    "SeleniumNodeStarter: Error while Post-Agent-Startup-Logic for " + computer.getName(),
+                    e);
+            action.addNodeRestartLog("Error in Post-Agent-Startup-Logic: " + e.getMessage());
         }
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+
+/**
+ * Runs processes in the controller JVM's host with {@link ProcessBuilder}, used for the hub.
+ */
+@Extension
+public class LocalProcessBackend extends ShellProcessBackend {
+
+    private static final Logger LOGGER = Logger.getLogger(LocalProcessBackend.class.getName());
+
+    @Override
+    public boolean isApplicable(Computer computer) {
+        return computer == null || computer instanceof Jenkins.MasterComputer;
+    }
+
+    @Override
+    protected Launcher createLauncher(Computer computer) {
+        return new Launcher.LocalLauncher(TaskListener.NULL);
+    }
+
+    @Override
+    public SeleniumProcess start(
+            Computer computer, List<String> cmd, FilePath pwd, Map<String, String> env, OutputStream output)
+            throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(cmd);
+        if (pwd != null) {
+            pb.directory(new File(pwd.getRemote()));
+        }
+        pb.environment().putAll(env);
+        pb.redirectErrorStream(true);
+        Process process = pb.start();
+
+        Thread pump = new Thread(() -> pumpOutput(process.getInputStream(), output), "SeleniumProcessOutput");
+        pump.setDaemon(true);
+        pump.start();
+        return new LocalProcess(process.toHandle(), process);
+    }
+
+    private static void pumpOutput(InputStream in, OutputStream out) {
+        try (in;
+                out) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Process output stream closed", e);
+        }
+    }
+
+    /**
+     * Wraps a process started by an earlier controller session, whose exit code is not available.
+     */
+    public static SeleniumProcess adopt(ProcessHandle handle) {
+        return new LocalProcess(handle, null);
+    }
+
+    private static final class LocalProcess implements SeleniumProcess {
+
+        private final ProcessHandle handle;
+        private final Process process;
+
+        LocalProcess(ProcessHandle handle, Process process) {
+            this.handle = handle;
+            this.process = process;
+        }
+
+        @Override
+        public long getPid() {
+            return handle.pid();
+        }
+
+        @Override
+        public long getStartTime() {
+            return handle.info().startInstant().map(Instant::toEpochMilli).orElse(-1L);
+        }
+
+        @Override
+        public boolean isAlive() {
+            return handle.isAlive();
+        }
+
+        @Override
+        public void kill() throws IOException, InterruptedException {
+            handle.destroy();
+            try {
+                handle.onExit().get();
+            } catch (ExecutionException e) {
+                throw new IOException("Could not wait for process " + handle.pid() + " to exit", e);
+            }
+        }
+
+        @Override
+        public CompletableFuture<Integer> onExit() {
+            return process != null
+                    ? process.onExit().thenApply(Process::exitValue)
+                    : handle.onExit().thenApply(h -> null);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.io.IOException;
+import java.util.Map;
+import jenkins.security.MasterToSlaveCallable;
+import net.sf.json.JSONObject;
+
+/**
+ * Runs on the agent, optionally asks the local Selenium node to drain and returns the number of sessions it still
+ * runs. A draining node accepts no new sessions and shuts down once the running ones are finished.
+ */
+public class NodeDrainProbe extends MasterToSlaveCallable<Integer, IOException> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int port;
+    private final boolean drain;
+
+    public NodeDrainProbe(int port, boolean drain) {
+        this.port = port;
+        this.drain = drain;
+    }
+
+    /**
+     * @return the number of running sessions, {@code -1} if the node does not answer
+     */
+    @Override
+    public Integer call() throws IOException {
+        String url = "http://localhost:" + port;
+        if (drain) {
+            // Nodes without a registration secret accept an empty one
+            SeleniumHttpClient.post(url + "/se/grid/node/drain", Map.of("X-REGISTRATION-SECRET", ""));
+        }
+        try {
+            JSONObject node = SeleniumHttpClient.getJson(url + "/status")
+                    .getJSONObject("value")
+                    .getJSONObject("node");
+            return (int) GridSlots.getSlots(node).stream()
+                    .filter(slot -> !GridSlots.isFree(slot))
+                    .count();
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+}
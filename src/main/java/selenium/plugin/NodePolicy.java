@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.util.FormValidation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Declares that agents matching a label expression run a Selenium node, and how it is configured.
+ * Policies are evaluated in order when an agent connects, the first matching one applies.
+ */
+public class NodePolicy extends AbstractDescribableImpl<NodePolicy> {
+
+    private final String label;
+    private String browser;
+    private int maxSessions;
+    private String nodeArguments;
+
+    @DataBoundConstructor
+    public NodePolicy(String label) {
+        this.label = Util.fixEmptyAndTrim(label);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getBrowser() {
+        return browser;
+    }
+
+    /**
+     * @param browser the only browser the node offers, all detected browsers if empty
+     */
+    @DataBoundSetter
+    public void setBrowser(String browser) {
+        this.browser = Util.fixEmptyAndTrim(browser);
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * @param maxSessions concurrent sessions of the node, the Selenium default (number of CPUs) if 0
+     */
+    @DataBoundSetter
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = Math.max(0, maxSessions);
+    }
+
+    public String getNodeArguments() {
+        return nodeArguments;
+    }
+
+    /**
+     * @param nodeArguments further arguments for {@code java -jar selenium-server.jar node}, e.g. {@code --config}
+     */
+    @DataBoundSetter
+    public void setNodeArguments(String nodeArguments) {
+        this.nodeArguments = Util.fixEmptyAndTrim(nodeArguments);
+    }
+
+    public boolean matches(Node node) {
+        if (label == null) {
+            return false;
+        }
+        try {
+            return Label.parseExpression(label).matches(node);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Arguments added to the node command line for this policy.
+     */
+    public List<String> getArguments() {
+        List<String> args = new ArrayList<>();
+        if (browser != null) {
+            // Skips the driver detection, so the node only offers this browser
+            args.add("--driver-implementation");
+            args.add(browser);
+        }
+        if (maxSessions > 0) {
+            args.add("--max-sessions");
+            args.add(String.valueOf(maxSessions));
+            // Selenium caps the sessions at the number of CPUs unless told otherwise
+            args.add("--override-max-sessions");
+            args.add("true");
+        }
+        if (nodeArguments != null) {
+            args.addAll(Arrays.asList(Util.tokenize(nodeArguments)));
+        }
+        return args;
+    }
+
+    @Override
+    public String toString() {
+        return "policy for label '" + label + "'";
+    }
+
+    @Extension
+    public static class DescriptorImpl extends Descriptor<NodePolicy> {
+
+        @Override
+        public String getDisplayName() {
+            return Messages.NodePolicy_displayName();
+        }
+
+        @POST
+        public FormValidation doCheckLabel(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.MANAGE);
+            if (Util.fixEmptyAndTrim(value) == null) {
+                return FormValidation.error(Messages.NodePolicy_error_label());
+            }
+            try {
+                Label label = Label.parseExpression(value);
+                return label.getNodes().isEmpty()
+                        ? FormValidation.warning(Messages.NodePolicy_warning_noAgents())
+                        : FormValidation.ok();
+            } catch (IllegalArgumentException e) {
+                return FormValidation.error(e.getMessage());
+            }
+        }
+    }
+}
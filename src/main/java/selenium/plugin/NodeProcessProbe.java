@@ -0,0 +1,68 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.io.IOException;
+import java.util.Optional;
+import jenkins.security.MasterToSlaveCallable;
+import net.sf.json.JSONObject;
+
+/**
+ * Runs on the agent and checks whether a Selenium node process is alive and, optionally,
+ * whether it reports itself as ready on its status endpoint.
+ */
+public class NodeProcessProbe extends MasterToSlaveCallable<Boolean, IOException> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long pid;
+    private final int port;
+    private final boolean checkStatus;
+
+    public NodeProcessProbe(long pid, int port, boolean checkStatus) {
+        this.pid = pid;
+        this.port = port;
+        this.checkStatus = checkStatus;
+    }
+
+    @Override
+    public Boolean call() throws IOException {
+        Optional<ProcessHandle> handle = ProcessHandle.of(pid).filter(ProcessHandle::isAlive);
+        if (handle.isEmpty()) {
+            return false;
+        }
+        // Guard against a PID that was reused by an unrelated process, e.g. after a reboot. A process whose command
+        // line cannot be read, such as one of another user, is not taken for a node.
+        boolean isSelenium = handle.get()
+                .info()
+                .commandLine()
+                .map(cmd -> cmd.contains("selenium"))
+                .orElse(false);
+        if (!isSelenium) {
+            return false;
+        }
+        return !checkStatus || isNodeReady(port);
+    }
+
+    static boolean isNodeReady(int port) {
+        try {
+            JSONObject status = SeleniumHttpClient.getJson("http://localhost:" + port + "/status");
+            return status.getJSONObject("value").optBoolean("ready", false);
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+}
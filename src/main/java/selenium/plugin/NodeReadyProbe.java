@@ -0,0 +1,38 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.io.IOException;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Runs on the agent and checks whether the local Selenium node reports itself as ready on its status endpoint.
+ */
+public class NodeReadyProbe extends MasterToSlaveCallable<Boolean, IOException> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int port;
+
+    public NodeReadyProbe(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public Boolean call() {
+        return NodeProcessProbe.isNodeReady(port);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+
+/**
+ * Decides what happens to the Selenium nodes of all agents when the controller shuts down or restarts, chosen with
+ * {@code -Dselenium.plugin.NodeShutdownCoordinator.policy}:
+ * <ul>
+ *   <li>{@code LEAVE_RUNNING} (default) keeps the nodes running, they are adopted when the controller is back.
+ *   Adopting nodes after a restart relies on this, with the other policies every restart also restarts all nodes.
+ *   <li>{@code STOP} kills the nodes right away.
+ *   <li>{@code DRAIN_AND_STOP} lets running sessions finish for up to two thirds of the deadline, then kills the nodes.
+ * </ul>
+ * Nodes are stopped in parallel within an overall deadline.
+ */
+final class NodeShutdownCoordinator {
+
+    private static final Logger LOGGER = Logger.getLogger(NodeShutdownCoordinator.class.getName());
+
+    enum Policy {
+        STOP,
+        DRAIN_AND_STOP,
+        LEAVE_RUNNING
+    }
+
+    static final Policy POLICY = parsePolicy(SystemProperties.getString(
+            NodeShutdownCoordinator.class.getName() + ".policy", Policy.LEAVE_RUNNING.name()));
+
+    private static final long DEADLINE_MILLIS =
+            SystemProperties.getLong(NodeShutdownCoordinator.class.getName() + ".deadlineSeconds", 30L) * 1000L;
+
+    private static final int MAX_PARALLEL =
+            SystemProperties.getInteger(NodeShutdownCoordinator.class.getName() + ".maxParallel", 32);
+
+    private NodeShutdownCoordinator() {}
+
+    private static Policy parsePolicy(String value) {
+        try {
+            return Policy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Unknown Selenium node shutdown policy {0}, using LEAVE_RUNNING", value);
+            return Policy.LEAVE_RUNNING;
+        }
+    }
+
+    /**
+     * Stops the nodes according to the policy and waits at most for the deadline.
+     *
+     * @return the names of the agents whose node did not stop in time
+     */
+    static List<String> shutdown(Collection<SeleniumAgentAction> actions) {
+        List<SeleniumAgentAction> running =
+                actions.stream().filter(SeleniumAgentAction::hasNodeProcess).toList();
+        if (running.isEmpty()) {
+            return List.of();
+        }
+        if (POLICY == Policy.LEAVE_RUNNING) {
+            LOGGER.log(
+                    Level.INFO, "Leaving {0} Selenium node(s) running for adoption after the restart", running.size());
+            return List.of();
+        }
+
+        long start = System.currentTimeMillis();
+        long drainUntil = POLICY == Policy.DRAIN_AND_STOP ? start + DEADLINE_MILLIS * 2 / 3 : start;
+        LOGGER.log(Level.INFO, "Stopping {0} Selenium node(s) with policy {1}", new Object[] {running.size(), POLICY});
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (SeleniumAgentAction action : running) {
+            tasks.add(() -> action.stopForShutdown(drainUntil));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(running.size(), MAX_PARALLEL),
+                new NamingThreadFactory(new DaemonThreadFactory(), "SeleniumNodeShutdown"));
+        List<String> notStopped = new ArrayList<>();
+        try {
+            // Cancels the stops that are still running at the deadline
+            List<Future<Boolean>> results = executor.invokeAll(tasks, DEADLINE_MILLIS, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < results.size(); i++) {
+                if (!isStopped(results.get(i))) {
+                    running.get(i).addNodeRestartLog("Node did not stop within the shutdown deadline");
+                    notStopped.add(running.get(i).getComputer().getName());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running.forEach(action -> notStopped.add(action.getComputer().getName()));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (notStopped.isEmpty()) {
+            LOGGER.log(Level.INFO, "Stopped {0} Selenium node(s) in {1} ms", new Object[] {
+                running.size(), System.currentTimeMillis() - start
+            });
+        } else {
+            LOGGER.log(Level.WARNING, "Selenium nodes not stopped within {0} s: {1}", new Object[] {
+                DEADLINE_MILLIS / 1000, String.join(", ", notStopped)
+            });
+        }
+        return notStopped;
+    }
+
+    private static boolean isStopped(Future<Boolean> result) throws InterruptedException {
+        try {
+            return result.get();
+        } catch (CancellationException e) {
+            return false;
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.FINE, "Error stopping Selenium node", e.getCause());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+/**
+ * Lifecycle state of the Selenium node on a single agent.
+ */
+public enum NodeState {
+    /** Not checked since the controller started, a node from before the restart may still be running. */
+    UNKNOWN,
+    /** No node process is known to run. */
+    STOPPED,
+    /** A start attempt is in progress, concurrent start requests join it. */
+    STARTING,
+    /** The node process was started or adopted and was alive at the last check. */
+    RUNNING,
+    /** Running sessions are allowed to finish before the node is stopped, new sessions are refused. */
+    DRAINING,
+    /** The node is being stopped, start requests wait until the stop is done. */
+    STOPPING
+}
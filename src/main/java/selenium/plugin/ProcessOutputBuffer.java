@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the last lines written by a process so they can be shown after it died.
+ */
+public class ProcessOutputBuffer {
+
+    private final int capacity;
+    private final Deque<String> lines = new ArrayDeque<>();
+
+    public ProcessOutputBuffer(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public synchronized void add(String line) {
+        lines.addLast(line);
+        if (lines.size() > capacity) {
+            lines.removeFirst();
+        }
+    }
+
+    public synchronized List<String> getLines() {
+        return new ArrayList<>(lines);
+    }
+
+    public synchronized void clear() {
+        lines.clear();
+    }
+}
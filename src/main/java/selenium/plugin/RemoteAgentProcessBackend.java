@@ -0,0 +1,128 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Proc;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import jenkins.model.Jenkins;
+
+/**
+ * Runs processes on an agent through its remoting channel. On Unix the process is started with {@code nohup}, so
+ * it keeps running when the channel drops and can be adopted after a controller restart.
+ */
+@Extension
+public class RemoteAgentProcessBackend extends ShellProcessBackend {
+
+    @Override
+    public boolean isApplicable(Computer computer) {
+        return computer != null && !(computer instanceof Jenkins.MasterComputer);
+    }
+
+    @Override
+    protected Launcher createLauncher(Computer computer) throws IOException {
+        VirtualChannel channel = computer.getChannel();
+        if (channel == null) {
+            throw new IOException("Agent " + computer.getName() + " is not connected");
+        }
+        return new Launcher.RemoteLauncher(TaskListener.NULL, channel, Boolean.TRUE.equals(computer.isUnix()));
+    }
+
+    @Override
+    public SeleniumProcess start(
+            Computer computer, List<String> cmd, FilePath pwd, Map<String, String> env, OutputStream output)
+            throws IOException, InterruptedException {
+        Launcher launcher = createLauncher(computer);
+        List<String> cmdList = new ArrayList<>();
+        if (launcher.isUnix()) {
+            // Detach from the terminal of the agent process
+            cmdList.add("nohup");
+        }
+        cmdList.addAll(cmd);
+
+        Launcher.ProcStarter ps = launcher.launch()
+                .cmds(cmdList)
+                .envs(env.entrySet().stream()
+                        .map(e -> e.getKey() + "=" + e.getValue())
+                        .toArray(String[]::new))
+                .stdout(output);
+        if (pwd != null) {
+            ps.pwd(pwd);
+        }
+        return new RemoteProcess(ps.start());
+    }
+
+    private static final class RemoteProcess implements SeleniumProcess {
+
+        private final Proc proc;
+        private final long startTime = System.currentTimeMillis();
+        private CompletableFuture<Integer> exit;
+
+        RemoteProcess(Proc proc) {
+            this.proc = proc;
+        }
+
+        @Override
+        public long getPid() {
+            return -1;
+        }
+
+        @Override
+        public long getStartTime() {
+            return startTime;
+        }
+
+        @Override
+        public boolean isAlive() throws IOException, InterruptedException {
+            return proc.isAlive();
+        }
+
+        @Override
+        public void kill() throws IOException, InterruptedException {
+            proc.kill();
+        }
+
+        @Override
+        public synchronized CompletableFuture<Integer> onExit() {
+            if (exit == null) {
+                // Proc has no callback, so one thread per watched process waits for it
+                exit = new CompletableFuture<>();
+                Thread waiter = new Thread(
+                        () -> {
+                            try {
+                                exit.complete(proc.join());
+                            } catch (IOException | InterruptedException e) {
+                                exit.complete(null);
+                            }
+                        },
+                        "SeleniumRemoteProcessExit");
+                waiter.setDaemon(true);
+                waiter.start();
+            }
+            return exit;
+        }
+    }
+}
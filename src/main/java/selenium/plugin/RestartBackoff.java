@@ -0,0 +1,122 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+
+/**
+ * Restart history of a supervised Selenium process (node or hub).
+ * Automatic restarts are delayed with an exponential backoff, and a process that keeps
+ * crashing is quarantined until it is started manually again.
+ */
+public class RestartBackoff {
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long restartWindowMillis;
+    private final int maxRestartsInWindow;
+
+    private final Deque<Long> restartHistory = new ArrayDeque<>();
+    private long nextRestartAllowedAt;
+    private boolean quarantined;
+    private String quarantineReason;
+
+    public RestartBackoff(
+            long baseDelayMillis, long maxDelayMillis, long restartWindowMillis, int maxRestartsInWindow) {
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.restartWindowMillis = restartWindowMillis;
+        this.maxRestartsInWindow = maxRestartsInWindow;
+    }
+
+    /**
+     * Defaults for Selenium nodes: 30s doubling up to 30min, quarantine after 5 restarts per hour.
+     */
+    public static RestartBackoff forNode() {
+        return new RestartBackoff(30 * 1000L, 30 * 60 * 1000L, 60 * 60 * 1000L, 5);
+    }
+
+    /**
+     * Defaults for the Selenium Hub: the first restart is immediate, then 2s doubling up to 1min,
+     * quarantine after 10 restarts within 10 minutes.
+     */
+    public static RestartBackoff forHub() {
+        return new RestartBackoff(2 * 1000L, 60 * 1000L, 10 * 60 * 1000L, 10);
+    }
+
+    public synchronized boolean isRestartAllowed(long now) {
+        return !quarantined && now >= nextRestartAllowedAt;
+    }
+
+    /**
+     * Records an automatic restart attempt and computes when the next one is allowed.
+     *
+     * @param now time of the attempt
+     * @param failureReason why the restart was needed or why it failed, {@code null} if the process came up
+     */
+    public synchronized void recordRestart(long now, String failureReason) {
+        while (!restartHistory.isEmpty() && now - restartHistory.peekFirst() > restartWindowMillis) {
+            restartHistory.removeFirst();
+        }
+        restartHistory.addLast(now);
+
+        int restarts = restartHistory.size();
+        if (restarts >= maxRestartsInWindow) {
+            quarantined = true;
+            quarantineReason = restarts + " automatic restarts within " + (restartWindowMillis / 60000)
+                    + " minutes" + (failureReason != null ? ", last failure: " + failureReason : "");
+            return;
+        }
+
+        long delay = Math.min(baseDelayMillis << (restarts - 1), maxDelayMillis);
+        nextRestartAllowedAt = now + delay;
+    }
+
+    /**
+     * Forgets the restart history and lifts a quarantine, e.g. after a manual start.
+     */
+    public synchronized void reset() {
+        restartHistory.clear();
+        nextRestartAllowedAt = 0;
+        quarantined = false;
+        quarantineReason = null;
+    }
+
+    public synchronized boolean isQuarantined() {
+        return quarantined;
+    }
+
+    public synchronized String getQuarantineReason() {
+        return quarantineReason;
+    }
+
+    public synchronized int getRecentRestartCount() {
+        return restartHistory.size();
+    }
+
+    /**
+     * @return milliseconds until the next automatic restart is allowed, {@code 0} if it is allowed right away
+     */
+    public synchronized long getRemainingDelay(long now) {
+        return Math.max(0, nextRestartAllowedAt - now);
+    }
+
+    public synchronized Date getNextRestartAllowedAt() {
+        return nextRestartAllowedAt > 0 ? new Date(nextRestartAllowedAt) : null;
+    }
+}
@@ -16,12 +16,11 @@
 package selenium.plugin;
 
 import hudson.FilePath;
-import hudson.Launcher;
-import hudson.Proc;
 import hudson.XmlFile;
 import hudson.init.InitMilestone;
 import hudson.init.Initializer;
 import hudson.model.*;
+import hudson.remoting.VirtualChannel;
 import hudson.util.FormValidation;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -29,7 +28,13 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -45,9 +50,25 @@ public class SeleniumAgentAction implements Action {
 
     private final transient Computer computer;
 
-    private transient Proc nodeProcess;
+    private static final int NODE_PORT = 5555;
+    static final String NODE_PROCESS_NAME = "node";
+    private static final long NODE_READY_TIMEOUT_MILLIS = 60_000;
+    private static final long NODE_READY_POLL_MILLIS = 250;
+
+    private transient SeleniumProcess nodeProcess;
+    // PID of a node that survived a controller restart and was adopted instead of restarted
+    private transient volatile String adoptedPid;
+    private final transient Object stateLock = new Object();
+    private transient volatile NodeState nodeState = NodeState.UNKNOWN;
+    private transient CompletableFuture<HttpResponse> startInFlight;
+    private transient CompletableFuture<Void> stopInFlight;
     private boolean nodeActive;
+    private List<BrowserInfo> browsers;
+    private long browsersUpdated;
+    private transient volatile long diskUsage = -1;
+    private transient volatile StartupTimings startupTimings;
     private transient List<String> nodeRestartLogs = new ArrayList<>();
+    private final transient RestartBackoff restartBackoff = RestartBackoff.forNode();
 
     public SeleniumAgentAction(Computer computer) {
         this.computer = computer;
@@ -59,13 +80,8 @@ public class SeleniumAgentAction implements Action {
         LOGGER.fine("registerShutdownHook: Registering Jenkins shutdown hook for Selenium nodes");
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             LOGGER.fine("Shutdown hook triggered - stopping all Selenium nodes");
-            for (Computer computer : Jenkins.get().getComputers()) {
-                SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
-                if (action != null && action.nodeProcess != null) {
-                    LOGGER.log(Level.FINE, "Stopping Selenium node on: {0}", computer.getName());
-                    action.stopNode();
-                }
-            }
+            // Jenkins may already be gone at this point, the cached actions are all that is needed
+            NodeShutdownCoordinator.shutdown(SeleniumAgentPropertyLink.getCachedActions());
         }));
     }
 
@@ -77,7 +93,7 @@ public class SeleniumAgentAction implements Action {
         this.nodeRestartLogs = new ArrayList<>(nodeRestartLogs);
     }
 
-    public void setNodeProcess(Proc nodeProcess) {
+    public void setNodeProcess(SeleniumProcess nodeProcess) {
         this.nodeProcess = nodeProcess;
         LOGGER.log(Level.INFO, "setNodeProcess: nodeProcess set to {0} for computer: {1}", new Object[] {
             nodeProcess != null ? "non-null" : "null", computer.getName()
@@ -161,14 +177,155 @@ public class SeleniumAgentAction implements Action {
         LOGGER.log(Level.INFO, "doStartNode: Manual start triggered for computer: {0}", computer.getName());
         addNodeRestartLog("Manual node start triggered via UI");
         Jenkins.get().checkPermission(Jenkins.MANAGE);
+        if (restartBackoff.isQuarantined()) {
+            addNodeRestartLog("Lifting quarantine after manual start");
+        }
+        restartBackoff.reset();
         return startNodeInternal();
     }
 
-    @RequirePOST
+    /**
+     * Starts the node, or joins the start attempt that is already running for this agent.
+     * Overlapping starts would otherwise kill each other's processes through the port cleanup, and a start during
+     * a stop would have its new process killed, so it waits for the stop first.
+     */
     public HttpResponse startNodeInternal() {
+        CompletableFuture<HttpResponse> attempt;
+        boolean owner = false;
+        while (true) {
+            CompletableFuture<Void> stopping;
+            synchronized (stateLock) {
+                stopping = stopInFlight;
+                if (stopping == null) {
+                    attempt = startInFlight;
+                    if (attempt == null) {
+                        attempt = new CompletableFuture<>();
+                        startInFlight = attempt;
+                        nodeState = NodeState.STARTING;
+                        owner = true;
+                    }
+                    break;
+                }
+            }
+            addNodeRestartLog("Node stop in progress, starting after it finished");
+            stopping.join();
+        }
+
+        if (!owner) {
+            LOGGER.log(Level.FINE, "startNodeInternal: Joining start in progress for: {0}", computer.getName());
+            addNodeRestartLog("Node start already in progress, waiting for its result");
+            return awaitStart(attempt);
+        }
+
+        HttpResponse result = null;
+        long startedAt = System.currentTimeMillis();
+        try {
+            result = launchNode();
+            return result;
+        } finally {
+            boolean started = result != null && !isError(result);
+            SeleniumEventJournal.record(
+                    computer.getName(),
+                    started ? SeleniumEvent.Type.NODE_STARTED : SeleniumEvent.Type.NODE_START_FAILED,
+                    (started ? "Selenium node started" : "Selenium node start failed" + describeError(result))
+                            + describeTimings(),
+                    System.currentTimeMillis() - startedAt);
+            synchronized (stateLock) {
+                startInFlight = null;
+                nodeState = started ? NodeState.RUNNING : NodeState.STOPPED;
+            }
+            if (result != null) {
+                attempt.complete(result);
+            } else {
+                attempt.completeExceptionally(new IllegalStateException("Node start failed unexpectedly"));
+            }
+        }
+    }
+
+    private HttpResponse awaitStart(CompletableFuture<HttpResponse> attempt) {
+        try {
+            return attempt.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FormValidation.error("Interrupted while waiting for the node start in progress.");
+        } catch (ExecutionException e) {
+            return FormValidation.error("Node start in progress failed: " + e.getCause().getMessage());
+        }
+    }
+
+    private String describeTimings() {
+        StartupTimings timings = startupTimings;
+        return timings != null ? " (" + timings + ")" : "";
+    }
+
+    /**
+     * Polls the status endpoint of the new node instead of sleeping a fixed time, so a fast node is available
+     * right away. Gives up early if the process died.
+     */
+    private boolean waitForNodeReady(SeleniumProcess process) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + NODE_READY_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            VirtualChannel channel = computer.getChannel();
+            if (channel == null) {
+                return false;
+            }
+            try {
+                if (!process.isAlive()) {
+                    return false;
+                }
+                if (channel.call(new NodeReadyProbe(getNodePort()))) {
+                    return true;
+                }
+            } catch (IOException e) {
+                // Remoting hiccup, the next poll decides
+            }
+            Thread.sleep(NODE_READY_POLL_MILLIS);
+        }
+        return false;
+    }
+
+    private void logJavaVersion() {
+        try {
+            ByteArrayOutputStream javaVersionOut = new ByteArrayOutputStream();
+            int javaExitCode = SeleniumProcessBackend.get(computer)
+                    .run(computer, List.of("java", "-version"), javaVersionOut);
+            String javaVersionOutput = javaVersionOut.toString(StandardCharsets.UTF_8);
+            addNodeRestartLog("Java check exit code: " + javaExitCode);
+            if (!javaVersionOutput.isEmpty()) {
+                String[] lines = javaVersionOutput.split("\n");
+                for (String line : lines) {
+                    if (!line.trim().isEmpty()) {
+                        addNodeRestartLog("Java: " + line.trim());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            addNodeRestartLog("WARNING: Could not check Java version: " + e.getMessage());
+        }
+    }
+
+    private static String describeError(HttpResponse response) {
+        return response instanceof FormValidation validation ? ": " + validation.getMessage() : "";
+    }
+
+    static boolean isError(HttpResponse response) {
+        return response instanceof FormValidation validation && validation.kind == FormValidation.Kind.ERROR;
+    }
+
+    private HttpResponse launchNode() {
         LOGGER.log(Level.INFO, "startNodeInternal: Starting Selenium node for computer: {0}", computer.getName());
         addNodeRestartLog("startNodeInternal() called");
+        StartupTimings timings = new StartupTimings();
+        startupTimings = timings;
+        timings.start(StartupTimings.Phase.PREPARE);
+        try {
+            return launchNodePhases(timings);
+        } finally {
+            timings.finish();
+        }
+    }
 
+    private HttpResponse launchNodePhases(StartupTimings timings) {
         if (computer.isOffline()) {
             LOGGER.log(Level.WARNING, "startNodeInternal: Computer is offline: {0}", computer.getName());
             addNodeRestartLog("ERROR: Computer is offline");
@@ -208,45 +365,40 @@ public class SeleniumAgentAction implements Action {
             FilePath tmp = rootPath.child("selenium-tmp");
             LOGGER.log(Level.INFO, "startNodeInternal: Using temp path: {0}", tmp.getRemote());
             addNodeRestartLog("Temp path: " + tmp.getRemote());
+            // A fresh agent, e.g. a new cloud agent, has no node from an earlier run that would need cleaning up
+            boolean freshAgent = !tmp.exists();
             tmp.mkdirs();
 
-            killByPidFile(tmp);
-
-            addNodeRestartLog("Checking for processes on port 5555...");
             boolean isUnix = Boolean.TRUE.equals(computer.isUnix());
-            try {
-                Launcher killLauncher = new Launcher.RemoteLauncher(TaskListener.NULL, computer.getChannel(), isUnix);
-                if (isUnix) {
-                    // On Unix/Mac: find and kill process on port 5555
-                    ByteArrayOutputStream lsofOut = new ByteArrayOutputStream();
-                    killLauncher
-                            .launch()
-                            .cmds("sh", "-c", "lsof -ti:5555 | xargs kill -9 2>/dev/null || true")
-                            .stdout(lsofOut)
-                            .stderr(lsofOut)
-                            .join();
-                    String lsofResult = lsofOut.toString(StandardCharsets.UTF_8).trim();
-                    if (!lsofResult.isEmpty()) {
-                        addNodeRestartLog("Killed process on port 5555: " + lsofResult);
+            SeleniumProcessBackend backend = SeleniumProcessBackend.get(computer);
+            adoptedPid = null;
+            if (freshAgent) {
+                addNodeRestartLog("Fresh agent, skipping PID file and port " + NODE_PORT + " cleanup");
+            } else {
+                timings.start(StartupTimings.Phase.PID_KILL);
+                killByPidFile(tmp);
+
+                timings.start(StartupTimings.Phase.PORT_CLEANUP);
+                addNodeRestartLog("Checking for processes on port " + NODE_PORT + "...");
+                try {
+                    String killed = backend.killPort(computer, NODE_PORT);
+                    if (killed == null) {
+                        addNodeRestartLog("Attempted to kill process on port " + NODE_PORT);
+                        // Give the OS a moment to release the port
+                        Thread.sleep(1000);
+                    } else if (!killed.isEmpty()) {
+                        addNodeRestartLog("Killed process on port " + NODE_PORT + ": " + killed);
+                        Thread.sleep(1000);
                     } else {
-                        addNodeRestartLog("No process found on port 5555");
+                        addNodeRestartLog("No process found on port " + NODE_PORT);
                     }
-                } else {
-                    killLauncher
-                            .launch()
-                            .cmds(
-                                    "cmd",
-                                    "/c",
-                                    "for /f \"tokens=5\" %a in ('netstat -aon ^| findstr :5555') do taskkill /PID %a /F 2>nul")
-                            .stdout(TaskListener.NULL)
-                            .join();
-                    addNodeRestartLog("Attempted to kill process on port 5555 (Windows)");
+                } catch (Exception e) {
+                    addNodeRestartLog(
+                            "Warning: Could not check/kill process on port " + NODE_PORT + ": " + e.getMessage());
                 }
-                Thread.sleep(1000);
-            } catch (Exception e) {
-                addNodeRestartLog("Warning: Could not check/kill process on port 5555: " + e.getMessage());
             }
 
+            timings.start(StartupTimings.Phase.JAR);
             String version = getVersion().replaceAll("[^0-9.]", "");
             LOGGER.log(Level.INFO, "startNodeInternal: Selenium version: {0}", version);
             addNodeRestartLog("Selenium version: " + version);
@@ -256,52 +408,43 @@ public class SeleniumAgentAction implements Action {
             FilePath jar = tmp.child("selenium-" + version + ".jar");
 
             if (!jar.exists()) {
-                LOGGER.log(Level.INFO, "startNodeInternal: Downloading Selenium JAR from: {0}", jarUrl);
-                addNodeRestartLog("Downloading Selenium JAR from: " + jarUrl);
-                jar.copyFrom(new URL(jarUrl));
+                // Written next to the JAR first, so an interrupted transfer never leaves a broken JAR behind
+                FilePath part = tmp.child(jar.getName() + ".part");
+                File cachedJar = globalProp.getCachedServerJar(version);
+                if (cachedJar != null) {
+                    addNodeRestartLog("Copying Selenium JAR from controller cache: " + cachedJar);
+                    part.copyFrom(new FilePath(cachedJar));
+                } else {
+                    LOGGER.log(Level.INFO, "startNodeInternal: Downloading Selenium JAR from: {0}", jarUrl);
+                    addNodeRestartLog("Downloading Selenium JAR from: " + jarUrl);
+                    part.copyFrom(new URL(jarUrl));
+                }
+                part.renameTo(jar);
                 addNodeRestartLog("Download complete");
             } else {
                 LOGGER.log(Level.INFO, "startNodeInternal: Selenium JAR already exists: {0}", jar.getRemote());
                 addNodeRestartLog("Selenium JAR already exists, skipping download");
             }
 
+            timings.start(StartupTimings.Phase.DRIVER_CACHE);
+            FilePath driverCache = SeleniumDriverCache.prepare(
+                    computer, rootPath, version, jar, getBrowsers(), this::addNodeRestartLog);
+
             LOGGER.log(Level.INFO, "startNodeInternal: Launching Selenium node process...");
             addNodeRestartLog("Launching Selenium node with --hub " + hubUrl);
 
             addNodeRestartLog("System Info: isUnix=" + isUnix + ", computer=" + computer.getName());
 
-            try {
-                Launcher javaCheckLauncher =
-                        new Launcher.RemoteLauncher(TaskListener.NULL, computer.getChannel(), isUnix);
-                ByteArrayOutputStream javaVersionOut = new ByteArrayOutputStream();
-                int javaExitCode = javaCheckLauncher
-                        .launch()
-                        .cmds("java", "-version")
-                        .stdout(javaVersionOut)
-                        .stderr(javaVersionOut)
-                        .join();
-                String javaVersionOutput = javaVersionOut.toString(StandardCharsets.UTF_8);
-                addNodeRestartLog("Java check exit code: " + javaExitCode);
-                if (!javaVersionOutput.isEmpty()) {
-                    String[] lines = javaVersionOutput.split("\n");
-                    for (String line : lines) {
-                        if (!line.trim().isEmpty()) {
-                            addNodeRestartLog("Java: " + line.trim());
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                addNodeRestartLog("WARNING: Could not check Java version: " + e.getMessage());
+            timings.start(StartupTimings.Phase.JAVA_CHECK);
+            if (freshAgent) {
+                addNodeRestartLog("Fresh agent, skipping Java version check");
+            } else {
+                logJavaVersion();
             }
 
-            // Build command - use nohup on Unix/Mac to run as background daemon
+            timings.start(StartupTimings.Phase.LAUNCH);
+            // The backend detaches the process, e.g. with nohup on Unix/Mac
             List<String> cmdList = new ArrayList<>();
-
-            if (isUnix) {
-                // On Unix/Mac: use nohup to detach from terminal and redirect output to file
-                cmdList.add("nohup");
-            }
-
             cmdList.add("java");
             cmdList.add("-jar");
             cmdList.add(jar.getRemote());
@@ -311,36 +454,40 @@ public class SeleniumAgentAction implements Action {
             cmdList.add("--hub");
             cmdList.add(hubUrl);
             cmdList.add("--port");
-            cmdList.add("5555");
+            cmdList.add(String.valueOf(NODE_PORT));
 
-            String[] cmdArray = cmdList.toArray(new String[0]);
-            addNodeRestartLog("Command: " + String.join(" ", cmdArray));
-            addNodeRestartLog("Working directory: " + tmp.getRemote());
-            addNodeRestartLog("Running as background daemon (nohup on Unix/Mac)");
+            NodePolicy policy = globalProp.getNodePolicy(node);
+            if (policy != null) {
+                addNodeRestartLog("Applying " + policy);
+                cmdList.addAll(policy.getArguments());
+            }
 
-            Launcher launcher = new Launcher.RemoteLauncher(TaskListener.NULL, computer.getChannel(), isUnix);
+            addNodeRestartLog("Command: " + String.join(" ", cmdList));
+            addNodeRestartLog("Working directory: " + tmp.getRemote());
+            addNodeRestartLog("Running as background daemon via " + backend.getClass().getSimpleName());
 
             FilePath logFile = tmp.child("selenium-node.log");
             addNodeRestartLog("Log file: " + logFile.getRemote());
 
-            Launcher.ProcStarter ps = launcher.launch().cmds(cmdArray).pwd(tmp);
-
-            if (isUnix) {
-                ps.stdout(logFile.write());
-                ps.stderr(logFile.write());
-            } else {
-                ByteArrayOutputStream processOutput = new ByteArrayOutputStream();
-                ps.stdout(processOutput);
-                ps.stderr(processOutput);
-            }
-
             addNodeRestartLog("Starting process...");
-            Proc process = ps.start();
+            SeleniumProcess process = backend.start(
+                    computer,
+                    NODE_PROCESS_NAME,
+                    cmdList,
+                    tmp,
+                    Map.of(SeleniumDriverCache.CACHE_PATH_ENV, driverCache.getRemote()),
+                    isUnix ? logFile : null);
             setNodeProcess(process);
             addNodeRestartLog("Process started");
 
-            Thread.sleep(5000);
+            timings.start(StartupTimings.Phase.BOOT_WAIT);
+            if (waitForNodeReady(process)) {
+                addNodeRestartLog("Node reports ready");
+            } else {
+                addNodeRestartLog("Node did not report ready within " + NODE_READY_TIMEOUT_MILLIS / 1000 + " s");
+            }
 
+            timings.start(StartupTimings.Phase.LOG_SCRAPE);
             if (isUnix && logFile.exists()) {
                 try {
                     String logContent = logFile.readToString();
@@ -367,7 +514,6 @@ public class SeleniumAgentAction implements Action {
                 addNodeRestartLog("Process running: " + isAlive);
                 if (!isAlive) {
                     addNodeRestartLog("Process died shortly after start - check log above for errors");
-                    setNodeActive(false);
                     return FormValidation.error("Selenium Node process died shortly after start.");
                 }
             } catch (IOException | InterruptedException e) {
@@ -377,10 +523,13 @@ public class SeleniumAgentAction implements Action {
 
             LOGGER.log(Level.INFO, "startNodeInternal: Selenium node started for: {0}", computer.getName());
             addNodeRestartLog("Selenium Node started successfully");
+            // The node reports its slots once it registered, pick them up for the browser inventory
+            SeleniumScheduler.get().schedule(this::refreshBrowserInventory, 30, TimeUnit.SECONDS);
 
             setNodeActive(true);
             addNodeRestartLog("nodeActive set to true");
 
+            timings.start(StartupTimings.Phase.PID_WRITE);
             writeNodePid(tmp, jar.getRemote());
             LOGGER.log(Level.INFO, "startNodeInternal: PID file written");
             addNodeRestartLog("PID file written");
@@ -389,10 +538,13 @@ public class SeleniumAgentAction implements Action {
             LOGGER.log(Level.INFO, "startNodeInternal: Config saved");
             addNodeRestartLog("Configuration saved - Node should now register with Hub");
 
+            timings.finish();
+            StartupTimingStats.record(timings);
+            addNodeRestartLog("Start phases: " + timings);
+
         } catch (IOException | InterruptedException e) {
             LOGGER.log(Level.SEVERE, "Error starting Selenium Node on " + computer.getName(), e);
             addNodeRestartLog("Failed to start Selenium Node: " + e.getMessage());
-            setNodeActive(false);
             return FormValidation.error("Failed to start Selenium Node: " + e.getMessage());
         }
         return new HttpRedirect(".");
@@ -402,50 +554,255 @@ public class SeleniumAgentAction implements Action {
     public HttpResponse doStopNode() {
         LOGGER.log(Level.INFO, "doStopNode: Manual stop triggered for computer: {0}", computer.getName());
         addNodeRestartLog("Manual node stop triggered via UI");
+        Jenkins.get().checkPermission(Jenkins.MANAGE);
         setNodeActive(false);
         return stopNode();
     }
 
+    /**
+     * Stops the node once a start in progress finished. Until the stop is done the node is {@link NodeState#STOPPING}
+     * and new starts wait for it, so they cannot launch a process that this stop then kills.
+     */
     public HttpResponse stopNode() {
-        synchronized (this) {
-            LOGGER.log(Level.INFO, "stopNode: Stopping Selenium node for computer: {0}", computer.getName());
-            addNodeRestartLog("stopNode() called");
-
-            Jenkins.get().checkPermission(Jenkins.MANAGE);
-            if (nodeProcess != null) {
-                try {
-                    LOGGER.log(Level.INFO, "stopNode: Killing node process");
-                    addNodeRestartLog("Killing node process...");
-                    nodeProcess.kill();
-                    LOGGER.log(Level.INFO, "stopNode: Node process killed successfully");
-                    addNodeRestartLog("Node process killed successfully");
-                } catch (IOException | InterruptedException e) {
-                    LOGGER.log(Level.SEVERE, "stopNode: Error stopping Selenium Node", e);
-                    addNodeRestartLog("ERROR stopping Selenium Node: " + e.getMessage());
-                    return FormValidation.error("Error stopping Selenium Node: " + e.getMessage());
+        CompletableFuture<Void> stop = new CompletableFuture<>();
+        while (true) {
+            CompletableFuture<HttpResponse> starting;
+            CompletableFuture<Void> stopping;
+            synchronized (stateLock) {
+                starting = startInFlight;
+                stopping = stopInFlight;
+                if (starting == null && stopping == null) {
+                    stopInFlight = stop;
+                    nodeState = NodeState.STOPPING;
+                    break;
                 }
-                setNodeProcess(null);
-                addNodeRestartLog("nodeProcess set to null");
+            }
+            if (starting != null) {
+                addNodeRestartLog("Waiting for node start in progress to finish");
+                awaitStart(starting);
             } else {
-                LOGGER.log(Level.INFO, "stopNode: nodeProcess is already null, nothing to stop");
-                addNodeRestartLog("nodeProcess is already null, nothing to stop");
+                stopping.join();
+            }
+        }
+        long stoppingAt = System.currentTimeMillis();
+        try {
+            return killNode();
+        } finally {
+            boolean stopped;
+            synchronized (stateLock) {
+                stopInFlight = null;
+                nodeState = hasNodeProcess() ? NodeState.RUNNING : NodeState.STOPPED;
+                stopped = nodeState == NodeState.STOPPED;
+            }
+            stop.complete(null);
+            if (stopped) {
+                SeleniumEventJournal.record(
+                        computer.getName(),
+                        SeleniumEvent.Type.NODE_STOPPED,
+                        "Selenium node stopped",
+                        System.currentTimeMillis() - stoppingAt);
+            }
+        }
+    }
+
+    boolean hasNodeProcess() {
+        return nodeProcess != null || adoptedPid != null;
+    }
+
+    /**
+     * Stops the node for a controller shutdown. Until {@code drainUntil} the node is drained first, so running
+     * sessions can finish.
+     *
+     * @return whether the node is stopped
+     */
+    boolean stopForShutdown(long drainUntil) throws InterruptedException {
+        if (System.currentTimeMillis() < drainUntil) {
+            drainNode(drainUntil);
+        }
+        addNodeRestartLog("Stopping node for controller shutdown");
+        stopNode();
+        return !hasNodeProcess();
+    }
+
+    private void drainNode(long drainUntil) throws InterruptedException {
+        VirtualChannel channel = computer.getChannel();
+        if (channel == null) {
+            return;
+        }
+        synchronized (stateLock) {
+            // Until the stop takes over and sets STOPPING
+            if (nodeState == NodeState.RUNNING) {
+                nodeState = NodeState.DRAINING;
+            }
+        }
+        try {
+            int sessions = channel.call(new NodeDrainProbe(getNodePort(), true));
+            addNodeRestartLog("Draining node with " + sessions + " running session(s)");
+            while (sessions > 0 && System.currentTimeMillis() < drainUntil) {
+                Thread.sleep(NODE_READY_POLL_MILLIS * 4);
+                sessions = channel.call(new NodeDrainProbe(getNodePort(), false));
+            }
+            if (sessions > 0) {
+                addNodeRestartLog("Stopping node with " + sessions + " session(s) still running");
+            }
+        } catch (IOException e) {
+            addNodeRestartLog("Could not drain node: " + e.getMessage());
+        }
+    }
+
+    private HttpResponse killNode() {
+        LOGGER.log(Level.INFO, "stopNode: Stopping Selenium node for computer: {0}", computer.getName());
+        addNodeRestartLog("stopNode() called");
+
+        if (nodeProcess == null && adoptedPid != null) {
+            addNodeRestartLog("Stopping adopted node process (PID=" + adoptedPid + ")");
+            FilePath tmp = getSeleniumTmp();
+            if (tmp != null) {
+                killByPidFile(tmp);
+            }
+            adoptedPid = null;
+        } else if (nodeProcess != null) {
+            try {
+                LOGGER.log(Level.INFO, "stopNode: Killing node process");
+                addNodeRestartLog("Killing node process...");
+                nodeProcess.kill();
+                LOGGER.log(Level.INFO, "stopNode: Node process killed successfully");
+                addNodeRestartLog("Node process killed successfully");
+            } catch (IOException | InterruptedException e) {
+                LOGGER.log(Level.SEVERE, "stopNode: Error stopping Selenium Node", e);
+                addNodeRestartLog("ERROR stopping Selenium Node: " + e.getMessage());
+                return FormValidation.error("Error stopping Selenium Node: " + e.getMessage());
             }
+            setNodeProcess(null);
+            addNodeRestartLog("nodeProcess set to null");
+        } else {
+            LOGGER.log(Level.INFO, "stopNode: nodeProcess is already null, nothing to stop");
+            addNodeRestartLog("nodeProcess is already null, nothing to stop");
         }
         return new HttpRedirect(".");
     }
 
     public boolean getNodeActive() throws IOException, InterruptedException {
         boolean isAlive = nodeProcess != null && nodeProcess.isAlive();
+        if (!isAlive && nodeProcess == null && adoptedPid != null) {
+            isAlive = isAdoptedNodeAlive();
+        }
         LOGGER.log(Level.FINE, "getNodeActive: nodeProcess={0}, isAlive={1}, computer={2}", new Object[] {
             nodeProcess != null ? "non-null" : "null", isAlive, computer.getName()
         });
         return isAlive;
     }
 
+    public List<BrowserInfo> getBrowsers() {
+        return browsers != null ? Collections.unmodifiableList(browsers) : List.of();
+    }
+
+    public Date getBrowsersUpdated() {
+        return browsersUpdated > 0 ? new Date(browsersUpdated) : null;
+    }
+
+    public boolean offersBrowser(String browserName) {
+        String name = browserName.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "");
+        return getBrowsers().stream().anyMatch(b -> b.getLabelName().equals("selenium-" + name));
+    }
+
+    /**
+     * Detects the browsers offered by this agent and updates the {@code selenium-*} labels if they changed.
+     */
+    public void refreshBrowserInventory() {
+        VirtualChannel channel = computer.getChannel();
+        if (channel == null) {
+            return;
+        }
+        try {
+            List<BrowserInfo> detected = channel.call(new BrowserInventoryProbe(getNodePort()));
+            List<BrowserInfo> previous = getBrowsers();
+            browsersUpdated = System.currentTimeMillis();
+            if (!detected.equals(previous)) {
+                browsers = new ArrayList<>(detected);
+                addNodeRestartLog("Browser inventory changed: " + detected);
+                save();
+                SeleniumBrowserLabelFinder.resetLabels(previous, detected);
+            }
+        } catch (IOException | InterruptedException e) {
+            LOGGER.log(Level.FINE, "Could not refresh browser inventory of " + computer.getName(), e);
+        }
+    }
+
+    /**
+     * Applies the retention policy to {@code selenium-tmp} and records the disk usage of it and the driver cache.
+     */
+    public void cleanupArtifacts() {
+        VirtualChannel channel = computer.getChannel();
+        FilePath tmp = getSeleniumTmp();
+        if (channel == null || tmp == null) {
+            return;
+        }
+        String version = getVersion().replaceAll("[^0-9.]", "");
+        ArtifactRetention retention = new ArtifactRetention(
+                        tmp.getRemote(), "selenium-", version, SeleniumArtifactCleanup.KEEP_VERSIONS)
+                .withLog("selenium-node.log", SeleniumArtifactCleanup.MAX_LOG_BYTES, SeleniumArtifactCleanup.KEPT_LOGS)
+                .withPidFile("selenium-node.pid")
+                .withCacheDir(tmp.sibling("selenium-cache").getRemote());
+        try {
+            ArtifactRetention.Result result = channel.call(retention);
+            diskUsage = result.getUsageBytes() + result.getCacheBytes();
+            if (!result.getRemoved().isEmpty()) {
+                addNodeRestartLog("Cleaned up selenium-tmp: " + String.join(", ", result.getRemoved()));
+            }
+        } catch (IOException | InterruptedException e) {
+            LOGGER.log(Level.FINE, "Could not clean up selenium-tmp of " + computer.getName(), e);
+        }
+    }
+
+    /**
+     * Disk usage of {@code selenium-tmp} and the driver cache in bytes as of the last cleanup, -1 if unknown.
+     */
+    public long getDiskUsage() {
+        return diskUsage;
+    }
+
+    /**
+     * Phase durations of the last or currently running node start, {@code null} if the node was not started yet.
+     */
+    public StartupTimings getStartupTimings() {
+        return startupTimings;
+    }
+
+    public NodeState getNodeState() {
+        return nodeState;
+    }
+
+    /**
+     * Enables the node if a policy applies to this agent. Nodes are never disabled by a policy.
+     *
+     * @return {@code true} if the node was enabled
+     */
+    public boolean applyNodePolicy(NodePolicy policy) {
+        if (policy == null || nodeActive) {
+            return false;
+        }
+        addNodeRestartLog("Enabling Selenium node because of the " + policy);
+        setNodeActive(true);
+        return true;
+    }
+
     public boolean isNodeActiveConfigured() {
         return nodeActive;
     }
 
+    public boolean isQuarantined() {
+        return restartBackoff.isQuarantined();
+    }
+
+    public String getQuarantineReason() {
+        return restartBackoff.getQuarantineReason();
+    }
+
+    public RestartBackoff getRestartBackoff() {
+        return restartBackoff;
+    }
+
     public synchronized void addNodeRestartLog(String message) {
         String logEntry = new java.util.Date() + ": " + message;
         LOGGER.log(Level.INFO, "NodeLog [{0}]: {1}", new Object[] {computer.getName(), message});
@@ -455,6 +812,17 @@ public class SeleniumAgentAction implements Action {
         }
     }
 
+    /**
+     * Restarts the node so it registers with another hub after a failover. The restart does not count towards the
+     * crash-loop detection, since the node did not fail.
+     */
+    public void restartForHubChange(String hubUrl) {
+        addNodeRestartLog("Hub changed, restarting node with --hub " + hubUrl);
+        SeleniumEventJournal.record(computer.getName(), SeleniumEvent.Type.NODE_RESTARTED, "Moved to hub " + hubUrl);
+        stopNode();
+        startNodeInternal();
+    }
+
     public void checkAndRestartNodeIfNeeded() {
         LOGGER.log(
                 Level.INFO, "checkAndRestartNodeIfNeeded: Checking node status for computer: {0}", computer.getName());
@@ -486,19 +854,21 @@ public class SeleniumAgentAction implements Action {
 
             // If nodeActive is true (node SHOULD be running), ensure the node IS running
             if (nodeActive) {
-                boolean nodeRunning = nodeProcess != null && getNodeActive();
+                boolean nodeRunning = getNodeActive();
+                if (!nodeRunning && nodeProcess == null && adoptedPid == null) {
+                    nodeRunning = tryAdoptRunningNode();
+                }
+                updateStateAfterCheck(nodeRunning);
                 LOGGER.log(Level.INFO, "checkAndRestartNodeIfNeeded: nodeActive=true, nodeRunning={0}", nodeRunning);
                 addNodeRestartLog("nodeActive=true, checking if process is alive: " + nodeRunning);
 
                 if (!nodeRunning) {
-                    LOGGER.log(
-                            Level.INFO, "checkAndRestartNodeIfNeeded: Node should be running but isn't, restarting...");
-                    addNodeRestartLog("Node should be running but process is not alive - triggering restart");
-                    this.startNodeInternal();
+                    restartWithBackoff();
                 } else {
                     addNodeRestartLog("Node is running as expected, no action needed");
                 }
             } else {
+                updateStateAfterCheck(getNodeActive());
                 LOGGER.log(Level.INFO, "checkAndRestartNodeIfNeeded: nodeActive=false, no restart needed");
                 addNodeRestartLog("nodeActive=false, no restart needed");
             }
@@ -508,6 +878,119 @@ public class SeleniumAgentAction implements Action {
         }
     }
 
+    private void updateStateAfterCheck(boolean nodeRunning) {
+        synchronized (stateLock) {
+            // Starts and stops in progress set the state themselves when they are done
+            if (nodeState == NodeState.RUNNING || nodeState == NodeState.STOPPED || nodeState == NodeState.UNKNOWN) {
+                nodeState = nodeRunning ? NodeState.RUNNING : NodeState.STOPPED;
+            }
+        }
+    }
+
+    private void restartWithBackoff() {
+        if (restartBackoff.isQuarantined()) {
+            addNodeRestartLog(
+                    "Node is quarantined, skipping automatic restart: " + restartBackoff.getQuarantineReason());
+            return;
+        }
+
+        SeleniumGlobalProperty globalProp = ManagementLink.all().get(SeleniumGlobalProperty.class);
+        if (globalProp == null || !globalProp.getHubActive()) {
+            // Not the node's fault, so it must not count towards the crash-loop detection
+            addNodeRestartLog("Selenium Hub is not active, skipping automatic restart");
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (!restartBackoff.isRestartAllowed(now)) {
+            addNodeRestartLog("Automatic restart postponed until " + restartBackoff.getNextRestartAllowedAt());
+            return;
+        }
+
+        LOGGER.log(Level.INFO, "checkAndRestartNodeIfNeeded: Node should be running but isn't, restarting...");
+        addNodeRestartLog("Node should be running but process is not alive - triggering restart");
+        SeleniumEventJournal.record(
+                computer.getName(), SeleniumEvent.Type.NODE_RESTARTED, "Automatic restart of a dead node");
+        HttpResponse result = startNodeInternal();
+
+        restartBackoff.recordRestart(now, isError(result) ? ((FormValidation) result).getMessage() : null);
+
+        if (restartBackoff.isQuarantined()) {
+            LOGGER.log(Level.WARNING, "Selenium node on {0} quarantined: {1}", new Object[] {
+                computer.getName(), restartBackoff.getQuarantineReason()
+            });
+            addNodeRestartLog("Node quarantined: " + restartBackoff.getQuarantineReason());
+            SeleniumEventJournal.record(
+                    computer.getName(), SeleniumEvent.Type.NODE_QUARANTINED, restartBackoff.getQuarantineReason());
+        } else {
+            addNodeRestartLog("Next automatic restart allowed at " + restartBackoff.getNextRestartAllowedAt());
+        }
+    }
+
+    private int getNodePort() {
+        return SeleniumProcessBackend.get(computer).getListenPort(computer, NODE_PORT);
+    }
+
+    private FilePath getSeleniumTmp() {
+        Node node = computer.getNode();
+        FilePath rootPath = node != null ? node.getRootPath() : null;
+        return rootPath != null ? rootPath.child("selenium-tmp") : null;
+    }
+
+    private boolean isAdoptedNodeAlive() throws IOException, InterruptedException {
+        String pid = adoptedPid;
+        VirtualChannel channel = computer.getChannel();
+        if (pid == null || channel == null) {
+            return false;
+        }
+        boolean alive = channel.call(new NodeProcessProbe(Long.parseLong(pid), getNodePort(), false));
+        if (!alive) {
+            addNodeRestartLog("Adopted node process (PID=" + pid + ") is not running anymore");
+            adoptedPid = null;
+        }
+        return alive;
+    }
+
+    /**
+     * Looks for a node started before the controller restarted and adopts it if it is healthy,
+     * so a controller restart does not restart every node in the fleet.
+     */
+    private boolean tryAdoptRunningNode() {
+        try {
+            VirtualChannel channel = computer.getChannel();
+            FilePath tmp = getSeleniumTmp();
+            if (channel == null || tmp == null) {
+                return false;
+            }
+            SeleniumProcess attached = SeleniumProcessBackend.get(computer).attach(computer, NODE_PROCESS_NAME);
+            if (attached != null) {
+                setNodeProcess(attached);
+                addNodeRestartLog("Attached to supervised Selenium node (PID=" + attached.getPid() + ")");
+                return true;
+            }
+            FilePath pidFile = getPidFile(tmp);
+            if (!pidFile.exists()) {
+                return false;
+            }
+            String pid = readPidFromFile(pidFile);
+            if (!pid.matches("\\d+")) {
+                return false;
+            }
+            if (channel.call(new NodeProcessProbe(Long.parseLong(pid), getNodePort(), true))) {
+                adoptedPid = pid;
+                LOGGER.log(Level.INFO, "Adopted running Selenium node (PID={0}) on {1}", new Object[] {
+                    pid, computer.getName()
+                });
+                addNodeRestartLog("Adopted running Selenium node (PID=" + pid + ") from previous controller session");
+                return true;
+            }
+            addNodeRestartLog("Node from PID file (PID=" + pid + ") is not healthy and will be restarted");
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            addNodeRestartLog("Could not check node from PID file: " + e.getMessage());
+        }
+        return false;
+    }
+
     private FilePath getPidFile(FilePath tmp) {
         return tmp.child("selenium-node.pid");
     }
@@ -523,20 +1006,8 @@ public class SeleniumAgentAction implements Action {
             FilePath pidFile = getPidFile(tmp);
             if (pidFile.exists()) {
                 String pid = readPidFromFile(pidFile);
-                if (!pid.isEmpty() && !pid.equals("0") && !pid.equals("1") && pid.matches("\\d+")) {
-                    boolean isUnix = Boolean.TRUE.equals(computer.isUnix());
-                    Launcher launcher = new Launcher.RemoteLauncher(TaskListener.NULL, computer.getChannel(), isUnix);
-                    if (isUnix) {
-                        launcher.launch()
-                                .cmds("sh", "-c", "kill -9 " + pid + " || true")
-                                .stdout(TaskListener.NULL)
-                                .join();
-                    } else {
-                        launcher.launch()
-                                .cmds("cmd", "/c", "taskkill /PID " + pid + " /F 2>nul || ver > nul")
-                                .stdout(TaskListener.NULL)
-                                .join();
-                    }
+                if (pid.matches("\\d+")) {
+                    SeleniumProcessBackend.get(computer).kill(computer, Long.parseLong(pid));
                     addNodeRestartLog("Killed Node by PID file (PID=" + pid + ")");
                 }
                 pidFile.delete();
@@ -547,43 +1018,12 @@ public class SeleniumAgentAction implements Action {
     }
 
     private void writeNodePid(FilePath tmp, String jarRemote) throws IOException, InterruptedException {
-        boolean isUnix = Boolean.TRUE.equals(computer.isUnix());
         FilePath pidFile = getPidFile(tmp);
-        Launcher launcher = new Launcher.RemoteLauncher(TaskListener.NULL, computer.getChannel(), isUnix);
-        if (isUnix) {
-            if (!jarRemote.matches("^[\\w\\-./]+$")) {
-                throw new IllegalArgumentException("Invalid jarRemote value");
-            }
-            // Use `pgrep` and correctly read stdout (macOS otherwise only returns exit code)
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            int exitCode = launcher.launch()
-                    .cmds("pgrep", "-f", "-n", jarRemote + ".* node")
-                    .stdout(out)
-                    .start()
-                    .joinWithTimeout(5000, TimeUnit.MILLISECONDS, TaskListener.NULL);
-            if (exitCode == 0) {
-                String pid = out.toString(StandardCharsets.UTF_8).trim();
-                if (pid.matches("\\d+") && !(pid.equals("0") || pid.equals("1"))) {
-                    pidFile.write(pid, StandardCharsets.UTF_8.name());
-                } else if (pid.isEmpty()) {
-                    addNodeRestartLog(
-                            "pgrep succeeded (exit code 0) but output was empty or only whitespace for jarRemote: "
-                                    + jarRemote);
-                }
-            } else {
-                addNodeRestartLog(
-                        "No process found for jarRemote: " + jarRemote + " (pgrep exit code: " + exitCode + ")");
-            }
+        long pid = SeleniumProcessBackend.get(computer).findPid(computer, jarRemote, "node");
+        if (pid > 1) {
+            pidFile.write(Long.toString(pid), StandardCharsets.UTF_8.name());
         } else {
-            String escaped = jarRemote.replace("'", "''");
-            String ps = "$p=(Get-CimInstance Win32_Process | Where-Object { $_.CommandLine -match [regex]::Escape('"
-                    + escaped
-                    + "') -and $_.CommandLine -match ' node' } | Select-Object -First 1 -ExpandProperty ProcessId); if ($p) { Set-Content -Path '"
-                    + pidFile.getRemote().replace("\\", "/") + "' -Value $p }";
-            launcher.launch()
-                    .cmds("powershell.exe", "-NoProfile", "-NonInteractive", "-Command", ps)
-                    .stdout(TaskListener.NULL)
-                    .join();
+            addNodeRestartLog("No process found for jarRemote: " + jarRemote);
         }
         if (pidFile.exists()) {
             addNodeRestartLog("Wrote Node PID file: " + pidFile.getRemote());
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.model.Node;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.NodeListener;
+
+/**
+ * Drops the cached {@link SeleniumAgentAction} of deleted or renamed agents, so agents of clouds that come and go
+ * do not keep their actions, logs and computers in memory.
+ */
+@Extension
+public class SeleniumAgentNodeListener extends NodeListener {
+
+    private static final Logger LOGGER = Logger.getLogger(SeleniumAgentNodeListener.class.getName());
+
+    @Override
+    protected void onDeleted(Node node) {
+        LOGGER.log(Level.FINE, "Agent deleted: {0}", node.getNodeName());
+        SeleniumAgentPropertyLink.clearCache(node.getNodeName());
+    }
+
+    @Override
+    protected void onUpdated(Node oldOne, Node newOne) {
+        if (!oldOne.getNodeName().equals(newOne.getNodeName())) {
+            SeleniumAgentPropertyLink.clearCache(oldOne.getNodeName());
+        }
+    }
+}
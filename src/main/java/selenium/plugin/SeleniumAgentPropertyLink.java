@@ -19,10 +19,12 @@ import hudson.Extension;
 import hudson.model.*;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jenkins.model.Jenkins;
 
 @Extension
 public class SeleniumAgentPropertyLink extends TransientComputerActionFactory {
@@ -44,21 +46,58 @@ public class SeleniumAgentPropertyLink extends TransientComputerActionFactory {
 
         String computerName = target.getName();
 
-        SeleniumAgentAction action = actionCache.computeIfAbsent(computerName, name -> {
-            LOGGER.log(Level.FINE, "Creating new SeleniumAgentAction for: {0}", name);
-            SeleniumAgentAction newAction = new SeleniumAgentAction(target);
-            newAction.load(); // Load saved configuration
-            LOGGER.log(Level.FINE, "Loaded config for {0}: nodeActive={1}", new Object[] {
-                name, newAction.isNodeActiveConfigured()
-            });
-            return newAction;
-        });
+        // An agent created again under the name of a deleted one gets a fresh action, the cached one still refers to
+        // the old Computer
+        SeleniumAgentAction action = actionCache.compute(
+                computerName,
+                (name, cached) -> cached != null && cached.getComputer() == target ? cached : create(target));
 
         return Collections.singletonList(action);
     }
 
+    private static SeleniumAgentAction create(Computer target) {
+        String name = target.getName();
+        LOGGER.log(Level.FINE, "Creating new SeleniumAgentAction for: {0}", name);
+        SeleniumAgentAction newAction = new SeleniumAgentAction(target);
+        newAction.load(); // Load saved configuration
+        LOGGER.log(Level.FINE, "Loaded config for {0}: nodeActive={1}", new Object[] {
+            name, newAction.isNodeActiveConfigured()
+        });
+        return newAction;
+    }
+
     public static void clearCache(String computerName) {
-        actionCache.remove(computerName);
+        if (actionCache.remove(computerName) != null) {
+            LOGGER.log(Level.FINE, "Evicted SeleniumAgentAction for: {0}", computerName);
+        }
+    }
+
+    /**
+     * Removes the actions of agents that no longer exist, in case a deletion was missed.
+     *
+     * @return the number of removed actions
+     */
+    public static int evictRemovedAgents() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return 0;
+        }
+        int evicted = 0;
+        for (String computerName : actionCache.keySet()) {
+            if (jenkins.getNode(computerName) == null) {
+                clearCache(computerName);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public static int getCacheSize() {
+        return actionCache.size();
+    }
+
+    public static Collection<SeleniumAgentAction> getCachedActions() {
+        return List.copyOf(actionCache.values());
     }
 
     public static SeleniumAgentAction getCachedAction(String computerName) {
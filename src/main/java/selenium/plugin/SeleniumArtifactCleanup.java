@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.ManagementLink;
+import hudson.model.TaskListener;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+/**
+ * Periodic work that applies the retention policy to the Selenium files of the controller and all online agents
+ * and records their disk usage. Runs every 6 hours.
+ * <p>
+ * The policy can be tuned with the system properties {@code selenium.plugin.SeleniumArtifactCleanup.keepVersions}
+ * (default 2), {@code .maxLogMegabytes} (default 10) and {@code .keptLogs} (default 3).
+ */
+@Extension
+public class SeleniumArtifactCleanup extends AsyncPeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(SeleniumArtifactCleanup.class.getName());
+
+    private static final long RECURRENCE_PERIOD = 6 * 60 * 60 * 1000L;
+
+    static final int KEEP_VERSIONS =
+            SystemProperties.getInteger(SeleniumArtifactCleanup.class.getName() + ".keepVersions", 2);
+
+    static final long MAX_LOG_BYTES =
+            SystemProperties.getLong(SeleniumArtifactCleanup.class.getName() + ".maxLogMegabytes", 10L) * 1024 * 1024;
+
+    static final int KEPT_LOGS = SystemProperties.getInteger(SeleniumArtifactCleanup.class.getName() + ".keptLogs", 3);
+
+    public SeleniumArtifactCleanup() {
+        super("Selenium Artifact Cleanup");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return RECURRENCE_PERIOD;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        LOGGER.log(Level.FINE, "Starting Selenium artifact cleanup");
+
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return;
+        }
+
+        SeleniumGlobalProperty globalProp = ManagementLink.all().get(SeleniumGlobalProperty.class);
+        if (globalProp != null) {
+            globalProp.cleanupHubArtifacts();
+        }
+
+        for (Computer computer : jenkins.getComputers()) {
+            if (computer instanceof Jenkins.MasterComputer || computer.isOffline()) {
+                continue;
+            }
+
+            SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+            if (action != null) {
+                try {
+                    action.cleanupArtifacts();
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Error cleaning up Selenium artifacts of " + computer.getName(), e);
+                }
+            }
+        }
+
+        LOGGER.log(Level.FINE, "Completed Selenium artifact cleanup");
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.labels.LabelAtom;
+import hudson.model.labels.LabelFinder;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import jenkins.model.Jenkins;
+
+/**
+ * Adds labels for the detected browsers of an agent, e.g. {@code selenium-chrome} and {@code selenium-chrome-138},
+ * so jobs and autoscaling can place work on agents that can actually serve the browser.
+ */
+@Extension
+public class SeleniumBrowserLabelFinder extends LabelFinder {
+
+    @Override
+    public Collection<LabelAtom> findLabels(Node node) {
+        Computer computer = node.toComputer();
+        if (computer == null || computer instanceof Jenkins.MasterComputer) {
+            return Collections.emptyList();
+        }
+        // Only look at existing actions, label lookups must not create or load them
+        SeleniumAgentAction action = SeleniumAgentPropertyLink.getCachedAction(computer.getName());
+        if (action == null) {
+            return Collections.emptyList();
+        }
+        Set<LabelAtom> labels = new LinkedHashSet<>();
+        for (String name : getLabelNames(action.getBrowsers())) {
+            labels.add(Jenkins.get().getLabelAtom(name));
+        }
+        return labels;
+    }
+
+    static Set<String> getLabelNames(List<BrowserInfo> browsers) {
+        Set<String> names = new LinkedHashSet<>();
+        for (BrowserInfo browser : browsers) {
+            names.add(browser.getLabelName());
+            if (browser.getMajorVersion() != null) {
+                names.add(browser.getLabelName() + "-" + browser.getMajorVersion());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Drops the cached node lists of the affected labels after an inventory change.
+     */
+    static void resetLabels(List<BrowserInfo> previous, List<BrowserInfo> current) {
+        Set<String> names = getLabelNames(previous);
+        names.addAll(getLabelNames(current));
+        Jenkins jenkins = Jenkins.get();
+        for (String name : names) {
+            jenkins.getLabelAtom(name).reset();
+        }
+    }
+}
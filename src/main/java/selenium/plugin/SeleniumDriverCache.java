@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import jenkins.model.Jenkins;
+import jenkins.security.MasterToSlaveCallable;
+import jenkins.util.SystemProperties;
+
+/**
+ * Driver cache of the Selenium nodes. Each agent keeps it in {@code selenium-cache} next to {@code selenium-tmp},
+ * so cleanups and version changes don't throw it away. Before a node starts the cache is filled through Selenium
+ * Manager, and the node gets it via {@code SE_CACHE_PATH} so the first session doesn't download anything.
+ * <p>
+ * A copy per Selenium version and platform in {@code JENKINS_HOME/selenium-cache/<version>/<platform>} is used to
+ * seed agents with an empty cache, e.g. agents without internet access. It is provided by an administrator, or, with
+ * {@code -Dselenium.plugin.SeleniumDriverCache.publish=true}, published from the first agent that resolved every
+ * requested browser. Publishing is off by default, since the copy ends up on every agent.
+ */
+public final class SeleniumDriverCache {
+
+    static final String CACHE_PATH_ENV = "SE_CACHE_PATH";
+
+    private static final boolean PUBLISH =
+            SystemProperties.getBoolean(SeleniumDriverCache.class.getName() + ".publish", false);
+
+    private static final Object PUBLISH_LOCK = new Object();
+
+    private SeleniumDriverCache() {}
+
+    /**
+     * Seeds and fills the driver cache of an agent. Failures are logged only, the node can still resolve drivers
+     * on its own.
+     *
+     * @return the cache directory on the agent
+     */
+    static FilePath prepare(
+            Computer computer,
+            FilePath rootPath,
+            String version,
+            FilePath jar,
+            List<BrowserInfo> inventory,
+            Consumer<String> log)
+            throws InterruptedException {
+        FilePath cache = rootPath.child("selenium-cache");
+        VirtualChannel channel = computer.getChannel();
+        if (channel == null) {
+            return cache;
+        }
+        try {
+            cache.mkdirs();
+            String platform = channel.call(new Platform());
+            File versionsDir = new File(Jenkins.get().getRootDir(), "selenium-cache");
+            File controllerCache = new File(new File(versionsDir, version), platform);
+
+            if (cache.list().isEmpty() && controllerCache.isDirectory()) {
+                log.accept("Seeding driver cache from controller (" + platform + ")");
+                new FilePath(controllerCache).copyRecursiveTo(cache);
+            }
+
+            List<String> browsers = getManagerBrowsers(inventory);
+            log.accept("Resolving drivers for " + browsers + " into " + cache.getRemote());
+            DriverCacheWarmup.Result result =
+                    channel.call(new DriverCacheWarmup(jar.getRemote(), cache.getRemote(), browsers));
+            for (String line : result.getLines()) {
+                log.accept("Driver cache: " + line);
+            }
+
+            if (PUBLISH && !controllerCache.exists()) {
+                if (result.isComplete()) {
+                    publish(cache, versionsDir, controllerCache, log);
+                } else {
+                    log.accept("Driver cache not published, not every browser was resolved");
+                }
+            }
+        } catch (IOException e) {
+            log.accept("WARNING: Could not prepare driver cache: " + e.getMessage());
+        }
+        return cache;
+    }
+
+    /**
+     * Maps the detected browsers to the names Selenium Manager understands. Without an inventory the common
+     * browsers are resolved.
+     */
+    static List<String> getManagerBrowsers(List<BrowserInfo> inventory) {
+        List<String> browsers = new ArrayList<>();
+        for (BrowserInfo browser : inventory) {
+            String name =
+                    switch (browser.getName()) {
+                        case "chrome", "firefox" -> browser.getName();
+                        case "microsoftedge", "msedge" -> "edge";
+                        default -> null;
+                    };
+            if (name != null && !browsers.contains(name)) {
+                browsers.add(name);
+            }
+        }
+        return browsers.isEmpty() ? List.of("chrome", "firefox") : browsers;
+    }
+
+    private static void publish(FilePath cache, File versionsDir, File controllerCache, Consumer<String> log)
+            throws IOException, InterruptedException {
+        synchronized (PUBLISH_LOCK) {
+            if (controllerCache.exists()) {
+                return;
+            }
+            // Drivers resolved for another Selenium version are outdated once a new version is published
+            File versionDir = controllerCache.getParentFile();
+            File[] versions = versionsDir.listFiles(File::isDirectory);
+            for (File other : versions != null ? versions : new File[0]) {
+                if (!other.equals(versionDir)) {
+                    new FilePath(other).deleteRecursive();
+                }
+            }
+            // Copy next to the target first, so other agents never get seeded from a partial cache
+            FilePath part = new FilePath(new File(controllerCache.getPath() + ".part"));
+            part.deleteRecursive();
+            cache.copyRecursiveTo(part);
+            part.renameTo(new FilePath(controllerCache));
+            log.accept("Published driver cache to " + controllerCache);
+        }
+    }
+
+    /**
+     * Drivers are platform specific, the controller cache is kept per operating system and architecture.
+     */
+    private static final class Platform extends MasterToSlaveCallable<String, IOException> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String call() {
+            String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+            if (os.contains("win")) {
+                os = "windows";
+            } else if (os.contains("mac")) {
+                os = "macos";
+            } else {
+                os = os.replaceAll("[^a-z0-9]+", "");
+            }
+            return os + "-" + System.getProperty("os.arch").toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import net.sf.json.JSONObject;
+
+/**
+ * An entry of the {@link SeleniumEventJournal}. The source is {@link #HUB} or the name of an agent.
+ */
+public final class SeleniumEvent {
+
+    public static final String HUB = "(hub)";
+
+    public enum Type {
+        /** Log line, only found in journals written before log lines were left out of the journal. */
+        LOG,
+        HUB_STARTED,
+        HUB_START_FAILED,
+        HUB_STOPPED,
+        HUB_EXITED,
+        HUB_QUARANTINED,
+        HUB_FAILOVER,
+        HUB_FAILBACK,
+        NODE_STARTED,
+        NODE_START_FAILED,
+        NODE_STOPPED,
+        NODE_RESTARTED,
+        NODE_QUARANTINED
+    }
+
+    private final long timestamp;
+    private final String source;
+    private final Type type;
+    private final String message;
+    private final long durationMillis;
+
+    public SeleniumEvent(long timestamp, String source, Type type, String message, long durationMillis) {
+        this.timestamp = timestamp;
+        this.source = source;
+        this.type = type;
+        this.message = message;
+        this.durationMillis = durationMillis;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Duration of the operation the event completes, -1 if it has none.
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("timestamp", timestamp);
+        json.put("source", source);
+        json.put("type", type.name());
+        json.put("message", message);
+        if (durationMillis >= 0) {
+            json.put("durationMillis", durationMillis);
+        }
+        return json;
+    }
+
+    static SeleniumEvent fromJson(JSONObject json) {
+        return new SeleniumEvent(
+                json.getLong("timestamp"),
+                json.getString("source"),
+                Type.valueOf(json.getString("type")),
+                json.optString("message", ""),
+                json.optLong("durationMillis", -1));
+    }
+}
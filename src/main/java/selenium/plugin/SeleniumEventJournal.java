@@ -0,0 +1,265 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.init.Terminator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * Append-only journal of hub and node events in {@code JENKINS_HOME/selenium-events}.
+ * <p>
+ * Recording only queues the event; a background flush appends queued events as JSON lines to
+ * {@code events.jsonl}. Once that file reaches the segment size it is compressed into
+ * {@code events-<timestamp>.jsonl.gz} and the oldest segments beyond the limit are deleted, so the journal stays
+ * bounded on disk and in memory. Segment size and count can be changed with the system properties
+ * {@code selenium.plugin.SeleniumEventJournal.segmentKilobytes} (default 1024) and {@code .maxSegments}
+ * (default 100).
+ * <p>
+ * Queries read the files newest first and stop once enough events matched. At most
+ * {@code .maxScanMegabytes} (default 64) of events are scanned per query, so a filter matching only old or no
+ * events does not read the whole journal.
+ */
+public final class SeleniumEventJournal {
+
+    private static final Logger LOGGER = Logger.getLogger(SeleniumEventJournal.class.getName());
+
+    private static final long SEGMENT_BYTES =
+            SystemProperties.getLong(SeleniumEventJournal.class.getName() + ".segmentKilobytes", 1024L) * 1024;
+
+    private static final int MAX_SEGMENTS =
+            SystemProperties.getInteger(SeleniumEventJournal.class.getName() + ".maxSegments", 100);
+
+    private static final long MAX_SCAN_BYTES =
+            SystemProperties.getLong(SeleniumEventJournal.class.getName() + ".maxScanMegabytes", 64L) * 1024 * 1024;
+
+    private static final int MAX_PENDING = 10_000;
+
+    private static final long FLUSH_DELAY_MILLIS = 1000;
+
+    private static final String CURRENT = "events.jsonl";
+
+    private static final Deque<SeleniumEvent> pending = new ArrayDeque<>();
+
+    private static final Object writeLock = new Object();
+
+    private SeleniumEventJournal() {}
+
+    public static void record(String source, SeleniumEvent.Type type, String message) {
+        record(source, type, message, -1);
+    }
+
+    public static void record(String source, SeleniumEvent.Type type, String message, long durationMillis) {
+        SeleniumEvent event = new SeleniumEvent(System.currentTimeMillis(), source, type, message, durationMillis);
+        synchronized (pending) {
+            if (pending.size() >= MAX_PENDING) {
+                // Disk is not keeping up, losing the oldest events is better than growing without bound
+                pending.removeFirst();
+            }
+            pending.addLast(event);
+        }
+        SeleniumScheduler.scheduleOnce(
+                "event-journal", SeleniumEventJournal::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes all queued events to disk.
+     */
+    public static void flush() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            List<SeleniumEvent> batch;
+            synchronized (pending) {
+                batch = new ArrayList<>(pending);
+                pending.clear();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            Path dir = getDirectory(jenkins);
+            try {
+                Files.createDirectories(dir);
+                Path current = dir.resolve(CURRENT);
+                try (Writer writer = Files.newBufferedWriter(
+                        current, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (SeleniumEvent event : batch) {
+                        writer.write(event.toJson().toString());
+                        writer.write('\n');
+                    }
+                }
+                if (Files.size(current) >= SEGMENT_BYTES) {
+                    rotate(dir, current);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not write " + batch.size() + " Selenium event(s)", e);
+            }
+        }
+    }
+
+    /**
+     * Returns matching events, newest first.
+     *
+     * @param start number of matching events to skip
+     * @param limit maximum number of events to return
+     */
+    public static List<SeleniumEvent> query(Predicate<SeleniumEvent> filter, int start, int limit) {
+        flush();
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int skip = Math.max(0, start);
+        int wanted = (int) Math.min(Integer.MAX_VALUE, (long) skip + limit);
+        Path dir = getDirectory(jenkins);
+        List<SeleniumEvent> matches = new ArrayList<>();
+        try {
+            long scanned = 0;
+            List<Path> segments;
+            // Flushes append to the current file and rotate it, closed segments are only ever deleted
+            synchronized (writeLock) {
+                Path current = dir.resolve(CURRENT);
+                if (Files.exists(current)) {
+                    scanned += collect(current, filter, wanted, matches);
+                }
+                segments = Files.isDirectory(dir) ? getSegmentsNewestFirst(dir) : List.of();
+            }
+            for (Path segment : segments) {
+                if (matches.size() >= wanted || scanned >= MAX_SCAN_BYTES) {
+                    break;
+                }
+                scanned += collect(segment, filter, wanted, matches);
+            }
+        } catch (NoSuchFileException e) {
+            // Deleted by a rotation while reading, the older segments are gone as well
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read Selenium events", e);
+        }
+        return matches.size() > skip ? new ArrayList<>(matches.subList(skip, matches.size())) : new ArrayList<>();
+    }
+
+    /**
+     * Adds the newest matching events of a file, newest first, until {@code wanted} events matched in total.
+     * Compressed segments can only be read from the start, so only as many events as are still needed are kept
+     * while reading.
+     *
+     * @return the number of bytes scanned
+     */
+    private static long collect(Path file, Predicate<SeleniumEvent> filter, int wanted, List<SeleniumEvent> matches)
+            throws IOException {
+        int needed = wanted - matches.size();
+        if (needed <= 0) {
+            return 0;
+        }
+        Deque<SeleniumEvent> newest = new ArrayDeque<>();
+        long scanned = 0;
+        try (BufferedReader reader = openReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                scanned += line.length() + 1;
+                SeleniumEvent event = parse(line);
+                if (event == null || !filter.test(event)) {
+                    continue;
+                }
+                if (newest.size() == needed) {
+                    newest.removeFirst();
+                }
+                newest.addLast(event);
+            }
+        }
+        newest.descendingIterator().forEachRemaining(matches::add);
+        return scanned;
+    }
+
+    @Terminator
+    public static void shutdown() {
+        flush();
+    }
+
+    private static Path getDirectory(Jenkins jenkins) {
+        return jenkins.getRootDir().toPath().resolve("selenium-events");
+    }
+
+    private static void rotate(Path dir, Path current) throws IOException {
+        Path segment = dir.resolve(String.format("events-%013d.jsonl.gz", System.currentTimeMillis()));
+        try (InputStream in = Files.newInputStream(current);
+                OutputStream out = new GZIPOutputStream(Files.newOutputStream(segment))) {
+            in.transferTo(out);
+        }
+        Files.delete(current);
+
+        List<Path> segments = getSegmentsNewestFirst(dir);
+        for (Path old : segments.subList(Math.min(MAX_SEGMENTS, segments.size()), segments.size())) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    private static List<Path> getSegmentsNewestFirst(Path dir) throws IOException {
+        // The timestamp in the name is zero padded, so the name order is the time order
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().matches("events-\\d+\\.jsonl\\.gz"))
+                    .sorted(Collections.reverseOrder())
+                    .toList();
+        }
+    }
+
+    private static BufferedReader openReader(Path file) throws IOException {
+        if (!file.getFileName().toString().endsWith(".gz")) {
+            return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        }
+        return new BufferedReader(
+                new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8));
+    }
+
+    private static SeleniumEvent parse(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            return SeleniumEvent.fromJson(JSONObject.fromObject(line));
+        } catch (JSONException | IllegalArgumentException e) {
+            // Incomplete line after a crash, or an event type of a newer version
+            return null;
+        }
+    }
+}
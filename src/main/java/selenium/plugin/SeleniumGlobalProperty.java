@@ -16,35 +16,52 @@
 package selenium.plugin;
 
 import hudson.Extension;
+import hudson.Functions;
+import hudson.Util;
 import hudson.XmlFile;
 import hudson.init.InitMilestone;
 import hudson.init.Initializer;
 import hudson.model.Computer;
 import hudson.model.Describable;
 import hudson.model.Descriptor;
+import hudson.model.Label;
 import hudson.model.ManagementLink;
+import hudson.model.Node;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import jenkins.model.Jenkins;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
-import org.apache.commons.io.IOUtils;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.HttpRedirect;
 import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.interceptor.RequirePOST;
 import org.kohsuke.stapler.verb.POST;
@@ -54,11 +71,29 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
 
     private static final Logger LOGGER = Logger.getLogger(SeleniumGlobalProperty.class.getName());
 
-    private transient Process hubProcess;
+    // One download per version at a time, callers for the same version wait for it instead of downloading again
+    private static final Map<String, CompletableFuture<File>> SERVER_JAR_DOWNLOADS = new ConcurrentHashMap<>();
+
+    private static final int DEFAULT_EVENTS_PER_PAGE = 100;
+    private static final int MAX_EVENTS_PER_PAGE = 1000;
+    private static final long HUB_SETTINGS_TIMEOUT_MILLIS = 60_000;
+
+    private transient SeleniumProcess hubProcess;
     private transient List<String> hubRestartLogs = new ArrayList<>();
+    private final transient SeleniumHubSupervisor hubSupervisor = new SeleniumHubSupervisor(this);
+    private final transient HubFailover hubFailover = new HubFailover(this);
+    private final transient Object hubLock = new Object();
+    private transient volatile long hubDiskUsage = -1;
 
     private String seleniumVersion;
+    private String versionSource;
     private boolean hubActive;
+    private List<NodePolicy> nodePolicies;
+    private String standbyHubUrl;
+    private String standbyHubAgent;
+    // Kept across controller restarts, so nodes started later join the hub the others are registered with
+    private boolean standbyHubActive;
+    private HubSettings hubSettings;
 
     @Override
     public Category getCategory() {
@@ -75,6 +110,103 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
         save();
     }
 
+    /**
+     * @return where the version list comes from: {@code null} for GitHub, an API mirror URL or a directory
+     */
+    public String getVersionSource() {
+        return versionSource;
+    }
+
+    @DataBoundSetter
+    public void setVersionSource(String versionSource) {
+        String source = Util.fixEmptyAndTrim(versionSource);
+        checkVersionSourcePermission(source);
+        this.versionSource = source;
+        save();
+    }
+
+    public SeleniumVersionCatalog getVersionCatalog() {
+        return SeleniumVersionCatalog.get();
+    }
+
+    public List<NodePolicy> getNodePolicies() {
+        return nodePolicies != null ? Collections.unmodifiableList(nodePolicies) : List.of();
+    }
+
+    @DataBoundSetter
+    public void setNodePolicies(List<NodePolicy> nodePolicies) {
+        this.nodePolicies = new ArrayList<>(nodePolicies);
+        save();
+    }
+
+    /**
+     * @return the first policy whose label expression matches the node, {@code null} if none does
+     */
+    public NodePolicy getNodePolicy(Node node) {
+        for (NodePolicy policy : getNodePolicies()) {
+            if (policy.matches(node)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    public String getStandbyHubUrl() {
+        return standbyHubUrl;
+    }
+
+    @DataBoundSetter
+    public void setStandbyHubUrl(String standbyHubUrl) {
+        leaveStandbyHub(Util.fixEmptyAndTrim(standbyHubUrl));
+        this.standbyHubUrl = Util.fixEmptyAndTrim(standbyHubUrl);
+        save();
+    }
+
+    public String getStandbyHubAgent() {
+        return standbyHubAgent;
+    }
+
+    @DataBoundSetter
+    public void setStandbyHubAgent(String standbyHubAgent) {
+        this.standbyHubAgent = Util.fixEmptyAndTrim(standbyHubAgent);
+        save();
+    }
+
+    public boolean isStandbyHubActive() {
+        return standbyHubActive && standbyHubUrl != null;
+    }
+
+    /**
+     * @return whether the nodes were moved to the standby hub, even if its URL was removed since
+     */
+    boolean isStandbyHubSelected() {
+        return standbyHubActive;
+    }
+
+    /**
+     * Moves the nodes back to the controller hub before the standby hub they use is removed or replaced.
+     */
+    private void leaveStandbyHub(String newStandbyHubUrl) {
+        if (standbyHubActive && !Objects.equals(newStandbyHubUrl, standbyHubUrl)) {
+            hubFailover.useControllerHub(newStandbyHubUrl == null
+                    ? "Standby hub was removed from the configuration"
+                    : "Standby hub was replaced by " + newStandbyHubUrl);
+        }
+    }
+
+    void setStandbyHubActive(boolean standbyHubActive) {
+        this.standbyHubActive = standbyHubActive;
+        save();
+    }
+
+    public HubSettings getHubSettings() {
+        return hubSettings != null ? hubSettings : new HubSettings();
+    }
+
+    public HubFailover getHubFailover() {
+        return hubFailover;
+    }
+
     public boolean getHubActive() {
         return hubActive;
     }
@@ -92,7 +224,6 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
         if (hubRestartLogs.size() > 25) {
             hubRestartLogs.remove(hubRestartLogs.size() - 1);
         }
-        save();
     }
 
     @DataBoundSetter
@@ -121,10 +252,24 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
             return FormValidation.error("Please select a Selenium version.");
         }
 
+        String source = Util.fixEmptyAndTrim(formData.optString("versionSource"));
+        if (!Objects.equals(source, versionSource)) {
+            checkVersionSourcePermission(source);
+        }
+        FormValidation sourceValidation = checkVersionSource(source);
+        if (sourceValidation.kind == FormValidation.Kind.ERROR) {
+            return sourceValidation;
+        }
+        if (!Objects.equals(source, versionSource)) {
+            this.versionSource = source;
+            SeleniumVersionCatalog.get().refreshAsync(source);
+        }
+
         boolean versionChanged = !seleniumVersion.equals(this.seleniumVersion);
         setSeleniumVersion(seleniumVersion);
 
         if (versionChanged) {
+            hubFailover.restartStandbyHub();
             if (hubActive) {
                 addHubRestartLog("Restarting Selenium Hub for version update");
                 doStopHub();
@@ -139,6 +284,172 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
         return new HttpRedirect(".");
     }
 
+    @RequirePOST
+    public HttpResponse doSavePolicies(org.kohsuke.stapler.StaplerRequest req) throws javax.servlet.ServletException {
+        Jenkins.get().checkPermission(Jenkins.MANAGE);
+
+        JSONObject formData = req.getSubmittedForm();
+        List<NodePolicy> policies = req.bindJSONToList(NodePolicy.class, formData.get("nodePolicies"));
+        setNodePolicies(policies);
+        addHubRestartLog("Saved " + policies.size() + " node policies");
+
+        // Agents that are already connected should not have to reconnect to pick up a new policy
+        for (Computer computer : getAgents()) {
+            Node node = computer.getNode();
+            SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+            if (node == null || action == null || computer.isOffline()) {
+                continue;
+            }
+            if (action.applyNodePolicy(getNodePolicy(node))) {
+                SeleniumScheduler.getBlocking().submit(action::checkAndRestartNodeIfNeeded);
+            }
+        }
+        return new HttpRedirect(".");
+    }
+
+    @RequirePOST
+    public HttpResponse doSaveStandbyHub(org.kohsuke.stapler.StaplerRequest req)
+            throws javax.servlet.ServletException {
+        Jenkins.get().checkPermission(Jenkins.MANAGE);
+
+        JSONObject formData = req.getSubmittedForm();
+        String url = Util.fixEmptyAndTrim(formData.optString("standbyHubUrl"));
+        FormValidation validation = checkStandbyHubUrl(url);
+        if (validation.kind == FormValidation.Kind.ERROR) {
+            return validation;
+        }
+        String agent = Util.fixEmptyAndTrim(formData.optString("standbyHubAgent"));
+        leaveStandbyHub(url);
+        if (!Objects.equals(agent, standbyHubAgent)) {
+            hubFailover.restartStandbyHub();
+        }
+        this.standbyHubUrl = url;
+        this.standbyHubAgent = agent;
+        save();
+        addHubRestartLog(url == null ? "Standby hub removed" : "Standby hub set to " + url
+                + (agent != null ? " on agent " + agent : ""));
+        SeleniumScheduler.get().submit(hubFailover::check);
+        return new HttpRedirect(".");
+    }
+
+    @RequirePOST
+    public HttpResponse doSaveHubSettings(org.kohsuke.stapler.StaplerRequest req)
+            throws javax.servlet.ServletException {
+        Jenkins.get().checkPermission(Jenkins.MANAGE);
+
+        JSONObject formData = req.getSubmittedForm();
+        HubSettings settings = req.bindJSON(HubSettings.class, formData.getJSONObject("hubSettings"));
+        FormValidation validation = settings.validate();
+        if (validation.kind == FormValidation.Kind.ERROR) {
+            return validation;
+        }
+        HubSettings previous = getHubSettings();
+        if (settings.toToml().equals(previous.toToml())) {
+            return new HttpRedirect(".");
+        }
+        this.hubSettings = settings;
+        save();
+        addHubRestartLog("Saved " + settings);
+        if (hubActive) {
+            SeleniumScheduler.getBlocking().submit(() -> applyHubSettings(previous));
+        }
+        return new HttpRedirect(".");
+    }
+
+    /**
+     * Restarts the hub with the current settings. If it does not come up with them, the previous settings are
+     * restored and the hub is started again, so a bad value does not leave the grid without a hub.
+     */
+    private void applyHubSettings(HubSettings previous) {
+        synchronized (hubLock) {
+            addHubRestartLog("Restarting Selenium Hub to apply the hub settings");
+            stopHubInternal();
+            launchHub();
+            if (waitForHub()) {
+                addHubRestartLog("Selenium Hub restarted with " + getHubSettings());
+                return;
+            }
+            addHubRestartLog("Selenium Hub did not come up with the new settings, restoring " + previous);
+            this.hubSettings = previous;
+            save();
+            stopHubInternal();
+            launchHub();
+        }
+    }
+
+    private boolean waitForHub() {
+        long deadline = System.currentTimeMillis() + HUB_SETTINGS_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!isHubProcessAlive()) {
+                return false;
+            }
+            if (isHubReachable()) {
+                return true;
+            }
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    @RequirePOST
+    public HttpResponse doUseControllerHub() {
+        Jenkins.get().checkPermission(Jenkins.MANAGE);
+        SeleniumScheduler.getBlocking().submit(hubFailover::useControllerHub);
+        return new HttpRedirect(".");
+    }
+
+    static FormValidation checkVersionSource(String source) {
+        if (source == null) {
+            return FormValidation.ok();
+        }
+        if (SeleniumVersionCatalog.isDirectory(source)) {
+            if (!Jenkins.get().hasPermission(Jenkins.ADMINISTER)) {
+                return FormValidation.error(Messages.SeleniumGlobalProperty_error_versionSourceDirectory());
+            }
+            return new File(source).isDirectory()
+                    ? FormValidation.ok()
+                    : FormValidation.error(Messages.SeleniumGlobalProperty_error_versionSource());
+        }
+        if (!SeleniumVersionCatalog.isUrl(source)) {
+            return FormValidation.error(Messages.SeleniumGlobalProperty_error_versionSource());
+        }
+        try {
+            new URL(source);
+            return FormValidation.ok();
+        } catch (MalformedURLException e) {
+            return FormValidation.error(Messages.SeleniumGlobalProperty_error_versionSource());
+        }
+    }
+
+    /**
+     * JARs from a directory source are run by the controller and agents, so only administrators may choose one.
+     */
+    private static void checkVersionSourcePermission(String source) {
+        if (SeleniumVersionCatalog.isDirectory(source)) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        }
+    }
+
+    static FormValidation checkStandbyHubUrl(String url) {
+        if (url == null) {
+            return FormValidation.ok();
+        }
+        try {
+            URL parsed = new URL(url);
+            if (!parsed.getProtocol().startsWith("http") || parsed.getHost().isEmpty()) {
+                return FormValidation.error(Messages.SeleniumGlobalProperty_error_standbyUrl());
+            }
+            return FormValidation.ok();
+        } catch (MalformedURLException e) {
+            return FormValidation.error(Messages.SeleniumGlobalProperty_error_standbyUrl());
+        }
+    }
+
     private void restartAllActiveAgents() {
         for (Computer computer : Jenkins.get().getComputers()) {
             if (computer.getName().isEmpty() || computer.getSearchName().equals("Jenkins")) {
@@ -165,7 +476,12 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
         SeleniumGlobalProperty instance = ManagementLink.all().get(SeleniumGlobalProperty.class);
         if (instance != null) {
             instance.load();
+            instance.reconcileHub();
             instance.checkAndRestartHubIfNeeded();
+            SeleniumVersionCatalog catalog = SeleniumVersionCatalog.get();
+            if (catalog.isStale(instance.versionSource)) {
+                catalog.refreshAsync(instance.versionSource);
+            }
             // Periodic health check is now handled by SeleniumHubHealthCheck
         }
     }
@@ -193,26 +509,141 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
     @RequirePOST
     public HttpResponse doStartHub() {
         Jenkins.get().checkPermission(Jenkins.MANAGE);
+        hubSupervisor.reset();
+        return startHubInternal();
+    }
+
+    HttpResponse startHubInternal() {
         if (this.seleniumVersion == null || this.seleniumVersion.isEmpty()) {
             return FormValidation.error(Messages.SeleniumGlobalProperty_error_select_version());
         }
 
+        synchronized (hubLock) {
+            return launchHub();
+        }
+    }
+
+    /**
+     * Returns the Selenium server JAR of a version from JENKINS_HOME, downloading it once if needed. Hub and nodes
+     * use the same JAR, so agents copy it from here over their channel instead of each downloading it from GitHub.
+     */
+    File getServerJar(String version) throws IOException {
+        File destFile = getServerJarFile(version);
+        if (destFile.exists()) {
+            return destFile;
+        }
+        CompletableFuture<File> download = new CompletableFuture<>();
+        CompletableFuture<File> running = SERVER_JAR_DOWNLOADS.putIfAbsent(version, download);
+        if (running != null) {
+            return awaitServerJar(version, running);
+        }
         try {
+            if (!destFile.exists()) {
+                downloadServerJar(version, destFile);
+            }
+            download.complete(destFile);
+            return destFile;
+        } catch (IOException | RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            SERVER_JAR_DOWNLOADS.remove(version, download);
+        }
+    }
+
+    private File getServerJarFile(String version) {
+        // Keep the JAR per version so a restart after a crash does not download it again
+        return new File(Jenkins.get().getRootDir(), "selenium-hub-" + version + ".jar");
+    }
+
+    private void downloadServerJar(String version, File destFile) throws IOException {
+        File partFile = new File(destFile.getPath() + ".part");
+        File mirroredJar = SeleniumVersionCatalog.getServerJar(versionSource, version);
+        if (mirroredJar != null) {
+            // Offline installations provide the JARs next to the version list
+            Files.copy(mirroredJar.toPath(), partFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } else {
             String downloadUrl = String.format(
                     "https://github.com/SeleniumHQ/selenium/releases/download/selenium-%s/selenium-server-%s.jar",
-                    this.seleniumVersion, this.seleniumVersion);
+                    version, version);
+            SeleniumHttpClient.download(downloadUrl, partFile.toPath());
+        }
+        if (!partFile.renameTo(destFile)) {
+            throw new IOException("Could not rename " + partFile + " to " + destFile);
+        }
+    }
 
-            File destFile = new File(Jenkins.get().getRootDir(), "selenium-hub.jar");
+    private static File awaitServerJar(String version, CompletableFuture<File> download) throws IOException {
+        try {
+            return download.get(SeleniumHttpClient.DOWNLOAD_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for Selenium server JAR " + version);
+        } catch (TimeoutException e) {
+            throw new IOException("Selenium server JAR " + version + " is still being downloaded", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not download Selenium server JAR " + version, e.getCause());
+        }
+    }
 
-            try (InputStream in = new URL(downloadUrl).openStream();
-                    FileOutputStream out = new FileOutputStream(destFile)) {
-                IOUtils.copy(in, out);
-            }
+    /**
+     * Returns the controller copy of the server JAR if it is there already or can be copied from a directory
+     * source. A node start never waits for a download to the controller; that runs in the background for the next
+     * start while the agent downloads the JAR itself.
+     *
+     * @return the JAR, or {@code null} if the agent has to download it
+     */
+    File getCachedServerJar(String version) {
+        File jar = getServerJarFile(version);
+        if (jar.exists()) {
+            return jar;
+        }
+        if (SeleniumVersionCatalog.getServerJar(versionSource, version) == null) {
+            SeleniumScheduler.scheduleBlockingOnce(
+                    "server-jar-" + version, () -> prefetchServerJar(version), 0, TimeUnit.SECONDS);
+            return null;
+        }
+        try {
+            return getServerJar(version);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not provide Selenium server JAR " + version + " from the controller", e);
+            return null;
+        }
+    }
+
+    private void prefetchServerJar(String version) {
+        try {
+            getServerJar(version);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not download Selenium server JAR " + version + " to the controller", e);
+        }
+    }
 
-            ProcessBuilder pb = new ProcessBuilder("java", "-jar", destFile.getAbsolutePath(), "hub");
-            pb.redirectErrorStream(true);
-            pb.redirectOutput(ProcessBuilder.Redirect.INHERIT);
-            this.hubProcess = pb.start();
+    private HttpResponse launchHub() {
+        long startedAt = System.currentTimeMillis();
+        try {
+            File destFile = getServerJar(this.seleniumVersion);
+            File configFile = writeHubConfig();
+
+            // Output goes to the supervisor so the last lines are available after a crash
+            SeleniumProcess process = SeleniumProcessBackend.get(null)
+                    .start(
+                            null,
+                            List.of(
+                                    "java",
+                                    "-jar",
+                                    destFile.getAbsolutePath(),
+                                    "hub",
+                                    "--config",
+                                    configFile.getAbsolutePath()),
+                            null,
+                            Map.of(),
+                            hubSupervisor.newOutputStream());
+            this.hubProcess = process;
+            hubSupervisor.watch(process);
+            if (process.getPid() > 0) {
+                writeHubPid(process.getPid());
+            }
             this.hubActive = true;
             addHubRestartLog("Started Selenium Hub");
             save();
@@ -227,11 +658,21 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
                 }
                 retries++;
             }
+            SeleniumEventJournal.record(
+                    SeleniumEvent.HUB,
+                    SeleniumEvent.Type.HUB_STARTED,
+                    "Selenium Hub " + seleniumVersion + " started",
+                    System.currentTimeMillis() - startedAt);
 
             return new HttpRedirect(".");
 
-        } catch (IOException e) {
+        } catch (IOException | InterruptedException e) {
             addHubRestartLog("Error starting Selenium Hub: " + e.getMessage());
+            SeleniumEventJournal.record(
+                    SeleniumEvent.HUB,
+                    SeleniumEvent.Type.HUB_START_FAILED,
+                    "Selenium Hub start failed: " + e.getMessage(),
+                    System.currentTimeMillis() - startedAt);
             return FormValidation.error("Error starting Selenium Hub: " + e.getMessage());
         }
     }
@@ -239,46 +680,136 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
     @RequirePOST
     public HttpResponse doStopHub() {
         Jenkins.get().checkPermission(Jenkins.MANAGE);
+        synchronized (hubLock) {
+            return stopHubInternal();
+        }
+    }
+
+    private HttpResponse stopHubInternal() {
+        hubSupervisor.unwatch();
         if (hubProcess == null) {
             return FormValidation.error("Cannot find Selenium Hub process.");
         }
-        if (!hubProcess.isAlive()) {
+        if (!isHubProcessAlive()) {
             return FormValidation.ok("Selenium Hub is not running.");
         }
+        long stoppingAt = System.currentTimeMillis();
         try {
-            hubProcess.destroy();
-            hubProcess.waitFor();
+            hubProcess.kill();
             hubProcess = null;
+            deleteHubPid();
             this.hubActive = false;
             addHubRestartLog("Stopped Selenium Hub");
+            SeleniumEventJournal.record(
+                    SeleniumEvent.HUB,
+                    SeleniumEvent.Type.HUB_STOPPED,
+                    "Selenium Hub stopped",
+                    System.currentTimeMillis() - stoppingAt);
             save();
             return new HttpRedirect(".");
-        } catch (InterruptedException e) {
+        } catch (IOException | InterruptedException e) {
             addHubRestartLog("Error stopping Selenium Hub: " + e.getMessage());
             return FormValidation.error("Error stopping Selenium Hub: " + e.getMessage());
         }
     }
 
-    public boolean isHubReachable() {
+    private boolean isHubProcessAlive() {
+        SeleniumProcess process = hubProcess;
         try {
-            URL statusUrl = new URL(getHubUrl() + "/status");
-            try (InputStream in = statusUrl.openStream()) {
-                IOUtils.toString(in, StandardCharsets.UTF_8);
-                return true;
-            }
+            return process != null && process.isAlive();
         } catch (IOException e) {
             return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
-    public Boolean isHubReady() {
+    private File getHubPidFile() {
+        return new File(Jenkins.get().getRootDir(), "selenium-hub.pid");
+    }
+
+    private void writeHubPid(long pid) {
+        try {
+            Files.writeString(getHubPidFile().toPath(), Long.toString(pid), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write Selenium Hub PID file", e);
+        }
+    }
+
+    /**
+     * Renders the hub settings into the TOML file the hub is started with.
+     */
+    private File writeHubConfig() throws IOException {
+        File configFile = new File(Jenkins.get().getRootDir(), "selenium-hub.toml");
+        Files.writeString(configFile.toPath(), getHubSettings().toToml(), StandardCharsets.UTF_8);
+        return configFile;
+    }
+
+    private void deleteHubPid() {
+        try {
+            Files.deleteIfExists(getHubPidFile().toPath());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not delete Selenium Hub PID file", e);
+        }
+    }
+
+    private static boolean isSeleniumHubProcess(ProcessHandle handle) {
+        // A PID from a stale file may belong to an unrelated process after a reboot. Without a readable command
+        // line that cannot be ruled out, so such a process is neither adopted nor stopped.
+        return handle.info().commandLine().map(cmd -> cmd.contains("selenium-hub")).orElse(false);
+    }
+
+    /**
+     * Adopts a hub that survived a controller restart instead of starting a second one.
+     * A hub found through the PID file that is not healthy is stopped so it can be restarted cleanly.
+     */
+    void reconcileHub() {
+        File pidFile = getHubPidFile();
+        if (hubProcess != null || !pidFile.exists()) {
+            return;
+        }
+
         try {
-            URL statusUrl = new URL(getHubUrl() + "/status");
-            try (InputStream in = statusUrl.openStream()) {
-                String response = IOUtils.toString(in, StandardCharsets.UTF_8);
-                JSONObject status = JSONObject.fromObject(response);
-                return status.getJSONObject("value").getBoolean("ready");
+            String pid = Files.readString(pidFile.toPath(), StandardCharsets.UTF_8).trim();
+            Optional<ProcessHandle> handle = pid.matches("\\d+")
+                    ? ProcessHandle.of(Long.parseLong(pid)).filter(ProcessHandle::isAlive)
+                    : Optional.empty();
+            if (handle.isEmpty() || !isSeleniumHubProcess(handle.get())) {
+                addHubRestartLog("Selenium Hub from PID file (PID=" + pid + ") is not running anymore"
+                        + " or cannot be identified as a hub");
+                deleteHubPid();
+                return;
+            }
+
+            if (hubActive && isHubReachable()) {
+                synchronized (hubLock) {
+                    hubProcess = LocalProcessBackend.adopt(handle.get());
+                    hubSupervisor.adopt(hubProcess);
+                }
+                addHubRestartLog("Adopted running Selenium Hub (PID=" + pid + ") from previous controller session");
+            } else {
+                addHubRestartLog("Stopping Selenium Hub (PID=" + pid + ") from previous controller session"
+                        + (hubActive ? " because it is not reachable" : " because the hub is disabled"));
+                handle.get().destroy();
+                deleteHubPid();
             }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not reconcile Selenium Hub from PID file", e);
+        }
+    }
+
+    /**
+     * @return whether the hub run by the controller answers, regardless of which hub the nodes use
+     */
+    public boolean isHubReachable() {
+        return HubFailover.isReachable(getPrimaryHubUrl());
+    }
+
+    public Boolean isHubReady() {
+        try {
+            JSONObject status = SeleniumHttpClient.getJson(getPrimaryHubUrl() + "/status");
+            return status.getJSONObject("value").getBoolean("ready");
         } catch (IOException e) {
             return false;
         }
@@ -290,9 +821,9 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
         } else if (!isHubReachable()) {
             return Messages.SeleniumGlobalProperty_hub_status_reachable();
         } else if (!isHubReady()) {
-            return Messages.SeleniumGlobalProperty_hub_status_ready() + " (Url: " + getHubUrl() + "/ui/)";
+            return Messages.SeleniumGlobalProperty_hub_status_ready() + " (Url: " + getPrimaryHubUrl() + "/ui/)";
         } else {
-            return Messages.SeleniumGlobalProperty_hub_status_url() + " " + getHubUrl() + "/ui/";
+            return Messages.SeleniumGlobalProperty_hub_status_url() + " " + getPrimaryHubUrl() + "/ui/";
         }
     }
 
@@ -300,7 +831,17 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
         return isHubReachable();
     }
 
+    /**
+     * @return the hub the nodes register with, the standby hub after a failover
+     */
     public String getHubUrl() {
+        return isStandbyHubActive() ? standbyHubUrl : getPrimaryHubUrl();
+    }
+
+    /**
+     * @return the hub run by the controller
+     */
+    public String getPrimaryHubUrl() {
         String jenkinsUrl = Jenkins.get().getRootUrl();
         if (jenkinsUrl == null) {
             return "http://localhost:4444";
@@ -320,6 +861,10 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
                 .collect(Collectors.toList());
     }
 
+    public int getCachedAgentActionCount() {
+        return SeleniumAgentPropertyLink.getCacheSize();
+    }
+
     public boolean hasSeleniumServer(Computer computer) throws IOException, InterruptedException {
         if (computer.getName().isEmpty() || computer.getSearchName().equals("Jenkins")) {
             return isHubReachable();
@@ -338,6 +883,113 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
         }
     }
 
+    /**
+     * Batched status of the agents table, answered from the cached per-agent state without remote calls.
+     *
+     * @param filter optional case-insensitive part of the agent name
+     * @param start index of the first agent to return
+     * @param limit maximum number of agents to return, {@code 0} for all
+     */
+    public HttpResponse doAgentStatus(
+            @QueryParameter String filter, @QueryParameter int start, @QueryParameter int limit) {
+        Jenkins.get().checkPermission(Jenkins.MANAGE);
+
+        String needle = filter != null ? filter.trim().toLowerCase(Locale.ROOT) : "";
+        List<Computer> agents = getAgents().stream()
+                .filter(c -> needle.isEmpty() || c.getName().toLowerCase(Locale.ROOT).contains(needle))
+                .toList();
+
+        int from = Math.max(0, Math.min(start, agents.size()));
+        int to = limit > 0 ? Math.min(agents.size(), from + limit) : agents.size();
+
+        JSONArray rows = new JSONArray();
+        for (Computer computer : agents.subList(from, to)) {
+            rows.add(getCachedAgentStatus(computer));
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("total", agents.size());
+        result.put("start", from);
+        result.put("agents", rows);
+        return HttpResponses.okJSON(result);
+    }
+
+    private JSONObject getCachedAgentStatus(Computer computer) {
+        JSONObject row = new JSONObject();
+        row.put("name", computer.getName());
+        row.put("online", computer.isOnline());
+
+        if (computer instanceof Jenkins.MasterComputer) {
+            row.put("running", isHubProcessAlive());
+            row.put("state", hubActive ? "HUB" : NodeState.STOPPED.name());
+            putDiskUsage(row, hubDiskUsage);
+            return row;
+        }
+
+        SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+        if (action == null) {
+            row.put("running", false);
+            row.put("state", NodeState.STOPPED.name());
+            return row;
+        }
+        NodeState state = action.getNodeState();
+        row.put("running", state == NodeState.RUNNING || state == NodeState.DRAINING);
+        row.put("state", state.name());
+        row.put("configured", action.isNodeActiveConfigured());
+        putDiskUsage(row, action.getDiskUsage());
+        row.put("quarantined", action.isQuarantined());
+        if (action.isQuarantined()) {
+            row.put("quarantineReason", action.getQuarantineReason());
+        }
+        return row;
+    }
+
+    private static void putDiskUsage(JSONObject row, long bytes) {
+        if (bytes >= 0) {
+            row.put("diskUsage", Functions.humanReadableByteSize(bytes));
+        }
+    }
+
+    /**
+     * Removes hub JARs of old versions from JENKINS_HOME and records the disk usage of the remaining ones.
+     */
+    void cleanupHubArtifacts() {
+        String version = seleniumVersion != null ? seleniumVersion : "";
+        ArtifactRetention retention = new ArtifactRetention(
+                Jenkins.get().getRootDir().getPath(), "selenium-hub-", version, SeleniumArtifactCleanup.KEEP_VERSIONS);
+        try {
+            ArtifactRetention.Result result = retention.call();
+            hubDiskUsage = result.getUsageBytes();
+            if (!result.getRemoved().isEmpty()) {
+                addHubRestartLog("Cleaned up hub files: " + String.join(", ", result.getRemoved()));
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not clean up Selenium hub files", e);
+        }
+    }
+
+    /**
+     * Hub metrics sampled once a minute, for the last {@code minutes} (default one hour, at most 24 hours).
+     */
+    public HttpResponse doHubMetrics(@QueryParameter int minutes) {
+        Jenkins.get().checkPermission(Jenkins.MANAGE);
+        return HttpResponses.okJSON(HubMetricsStore.get().toJson(minutes > 0 ? minutes : 60));
+    }
+
+    public List<StartupTimingStats.Row> getStartupTimingRows() {
+        return StartupTimingStats.getRows();
+    }
+
+    public boolean isQuarantined(Computer computer) {
+        SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+        return action != null && action.isQuarantined();
+    }
+
+    public String getQuarantineReason(Computer computer) {
+        SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+        return action != null ? action.getQuarantineReason() : null;
+    }
+
     public String getAgentUrl(Computer computer) {
         if (computer.getName().isEmpty() || computer.getSearchName().equals("Jenkins")) {
             return Jenkins.get().getRootUrl() + "computer/(built-in)/selenium-settings";
@@ -347,11 +999,7 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
 
     public JSONObject getGridStatus() {
         try {
-            URL statusUrl = new URL(getHubUrl() + "/status");
-            try (InputStream in = statusUrl.openStream()) {
-                String response = IOUtils.toString(in, StandardCharsets.UTF_8);
-                return JSONObject.fromObject(response);
-            }
+            return SeleniumHttpClient.getJson(getHubUrl() + "/status");
         } catch (IOException e) {
             JSONObject errorStatus = new JSONObject();
             JSONObject value = new JSONObject();
@@ -363,10 +1011,18 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
         }
     }
 
+    public SeleniumHubSupervisor getHubSupervisor() {
+        return hubSupervisor;
+    }
+
     public void checkAndRestartHubIfNeeded() {
+        if (hubSupervisor.isRestartPending() || hubSupervisor.isQuarantined()) {
+            // The supervisor already handles this crash
+            return;
+        }
         if (hubActive && (!isHubReachable() || hubProcess == null)) {
             addHubRestartLog("Trigger automatic restart of Selenium Hub (Hub not reachable or stopped)");
-            doStartHub();
+            startHubInternal();
         }
     }
 
@@ -423,11 +1079,120 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
         return new HttpRedirect(".");
     }
 
+    /**
+     * Reads the event journal, newest first.
+     *
+     * @param source {@code (hub)} or an agent name, all sources if empty
+     * @param type comma separated event types, all types if empty
+     * @param since only events at or after this time, in milliseconds since the epoch
+     * @param until only events before this time, in milliseconds since the epoch
+     */
+    public HttpResponse doEvents(
+            @QueryParameter String source,
+            @QueryParameter String type,
+            @QueryParameter long since,
+            @QueryParameter long until,
+            @QueryParameter int start,
+            @QueryParameter int limit) {
+        Jenkins.get().checkPermission(Jenkins.MANAGE);
+
+        Set<SeleniumEvent.Type> types = new LinkedHashSet<>();
+        for (String name : Util.fixNull(type).split(",")) {
+            if (!name.isBlank()) {
+                try {
+                    types.add(SeleniumEvent.Type.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    return HttpResponses.errorJSON("Unknown event type: " + name.trim());
+                }
+            }
+        }
+        String wantedSource = Util.fixEmptyAndTrim(source);
+        int pageSize = limit > 0 ? Math.min(limit, MAX_EVENTS_PER_PAGE) : DEFAULT_EVENTS_PER_PAGE;
+
+        // One more than requested tells whether another page exists
+        List<SeleniumEvent> events = SeleniumEventJournal.query(
+                event -> (wantedSource == null || wantedSource.equals(event.getSource()))
+                        && (types.isEmpty() || types.contains(event.getType()))
+                        && event.getTimestamp() >= since
+                        && (until <= 0 || event.getTimestamp() < until),
+                Math.max(0, start),
+                pageSize + 1);
+
+        JSONArray rows = new JSONArray();
+        for (SeleniumEvent event : events.subList(0, Math.min(pageSize, events.size()))) {
+            rows.add(event.toJson());
+        }
+        JSONObject result = new JSONObject();
+        result.put("start", Math.max(0, start));
+        result.put("events", rows);
+        result.put("hasMore", events.size() > pageSize);
+        return HttpResponses.okJSON(result);
+    }
+
+    /**
+     * Starts or stops the nodes of many agents at once, selected by a label expression and/or a
+     * comma separated list of agent names. Returns the operation id and progress as JSON.
+     */
+    @POST
+    public HttpResponse doBulkNodeOperation(
+            @QueryParameter String operation, @QueryParameter String label, @QueryParameter String agents) {
+        Jenkins.get().checkPermission(Jenkins.MANAGE);
+
+        BulkNodeOperation.Type type;
+        try {
+            type = BulkNodeOperation.Type.valueOf(Util.fixNull(operation).trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return HttpResponses.errorJSON("Unknown operation, use 'start' or 'stop': " + operation);
+        }
+
+        Set<Computer> targets = new LinkedHashSet<>();
+        if (Util.fixEmptyAndTrim(label) != null) {
+            Label parsed;
+            try {
+                parsed = Label.parseExpression(label);
+            } catch (IllegalArgumentException e) {
+                return HttpResponses.errorJSON("Invalid label expression: " + e.getMessage());
+            }
+            for (Node node : Jenkins.get().getNodes()) {
+                Computer computer = node.toComputer();
+                if (computer != null && parsed.matches(node)) {
+                    targets.add(computer);
+                }
+            }
+        }
+        for (String name : Util.fixNull(agents).split(",")) {
+            if (!name.isBlank()) {
+                Computer computer = Jenkins.get().getComputer(name.trim());
+                if (computer == null) {
+                    return HttpResponses.errorJSON("Unknown agent: " + name.trim());
+                }
+                targets.add(computer);
+            }
+        }
+        targets.removeIf(c -> c instanceof Jenkins.MasterComputer);
+
+        if (targets.isEmpty()) {
+            return HttpResponses.errorJSON("No agents matched the given label or names.");
+        }
+
+        BulkNodeOperation bulk = BulkNodeOperation.submit(type, new ArrayList<>(targets));
+        addHubRestartLog("Bulk " + type + " of " + targets.size() + " node(s) queued as " + bulk.getId());
+        return HttpResponses.okJSON(bulk.toJson());
+    }
+
+    public HttpResponse doBulkNodeOperationStatus(@QueryParameter String id) {
+        Jenkins.get().checkPermission(Jenkins.MANAGE);
+        BulkNodeOperation bulk = BulkNodeOperation.get(id);
+        if (bulk == null) {
+            return HttpResponses.errorJSON("Unknown bulk operation: " + id);
+        }
+        return HttpResponses.okJSON(bulk.toJson());
+    }
+
     @Extension
     public static class DescriptorImpl extends Descriptor<SeleniumGlobalProperty> {
 
-        private transient volatile List<String[]> cachedVersions;
-        private transient volatile long lastFetchTime;
+        private static final int LISTED_VERSIONS = 15;
 
         @Override
         public String getDisplayName() {
@@ -435,53 +1200,40 @@ public class SeleniumGlobalProperty extends ManagementLink implements Describabl
         }
 
         @RequirePOST
-        public synchronized ListBoxModel doFillSeleniumVersionItems() {
+        public ListBoxModel doFillSeleniumVersionItems() {
             Jenkins.get().checkPermission(Jenkins.MANAGE);
+            SeleniumGlobalProperty property = ManagementLink.all().get(SeleniumGlobalProperty.class);
+            String source = property != null ? property.getVersionSource() : null;
+
+            // Answered from the local catalogue only, a stale list is refreshed for the next page load
+            SeleniumVersionCatalog catalog = SeleniumVersionCatalog.get();
+            if (catalog.isStale(source)) {
+                catalog.refreshAsync(source);
+            }
+            String suffix = catalog.isDefaultList() ? "-default" : "";
             ListBoxModel items = new ListBoxModel();
-            List<String[]> versions = fetchSeleniumVersions();
-            for (String[] version : versions) {
-                items.add(version[0], version[1]);
+            catalog.getVersions().stream()
+                    .limit(LISTED_VERSIONS)
+                    .forEach(version -> items.add("selenium-" + version + suffix, version));
+
+            // The configured version stays selectable even when newer releases pushed it out of the list
+            String configured = property != null ? property.getSeleniumVersion() : null;
+            if (configured != null && items.stream().noneMatch(option -> configured.equals(option.value))) {
+                items.add("selenium-" + configured, configured);
             }
             return items;
         }
 
-        private List<String[]> fetchSeleniumVersions() {
-            try {
-                return tryFetchFromApi();
-            } catch (IOException e) {
-                return getCachedOrDefaultVersions();
-            }
+        @POST
+        public FormValidation doCheckVersionSource(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.MANAGE);
+            return checkVersionSource(Util.fixEmptyAndTrim(value));
         }
 
-        private List<String[]> tryFetchFromApi() throws IOException {
-            if (cachedVersions != null && System.currentTimeMillis() - lastFetchTime < 86400000) {
-                return cachedVersions;
-            }
-
-            String apiUrl = "https://api.github.com/repos/SeleniumHQ/selenium/tags";
-            String json = IOUtils.toString(new URL(apiUrl), StandardCharsets.UTF_8);
-            JSONArray tags = JSONArray.fromObject(json);
-
-            List<String[]> versions = tags.stream()
-                    .map(obj -> ((JSONObject) obj).getString("name"))
-                    .filter(version -> version.matches("^selenium-\\d+\\.\\d+\\.\\d+$"))
-                    .limit(15)
-                    .sorted(Comparator.reverseOrder())
-                    .map(version -> new String[] {version, version.replace("selenium-", "")})
-                    .collect(Collectors.toList());
-
-            cachedVersions = versions;
-            lastFetchTime = System.currentTimeMillis();
-            return versions;
-        }
-
-        private List<String[]> getCachedOrDefaultVersions() {
-            if (cachedVersions != null) return cachedVersions;
-            return Arrays.asList(
-                    new String[] {"selenium-4.33.0-default", "4.33.0"},
-                    new String[] {"selenium-4.32.0-default", "4.32.0"},
-                    new String[] {"selenium-4.31.0-default", "4.31.0"},
-                    new String[] {"selenium-4.30.0-default", "4.30.0"});
+        @POST
+        public FormValidation doCheckStandbyHubUrl(@QueryParameter String value) {
+            Jenkins.get().checkPermission(Jenkins.MANAGE);
+            return checkStandbyHubUrl(Util.fixEmptyAndTrim(value));
         }
     }
 }
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.ManagementLink;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.queue.Tasks;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.steps.BodyExecutionCallback;
+import org.jenkinsci.plugins.workflow.steps.EnvironmentExpander;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.springframework.security.core.Authentication;
+
+/**
+ * {@code withSeleniumGrid(browser: 'chrome', slots: 2) { ... }} waits without occupying an executor
+ * until the hub reports enough free slots, reserves them and runs the body with {@code SELENIUM_REMOTE_URL} set.
+ */
+public class SeleniumGridStep extends Step {
+
+    private String browser = "chrome";
+    private int slots = 1;
+    private int timeout = 10;
+    private String startNodesOn;
+
+    @DataBoundConstructor
+    public SeleniumGridStep() {}
+
+    public String getBrowser() {
+        return browser;
+    }
+
+    @DataBoundSetter
+    public void setBrowser(String browser) {
+        this.browser = Util.fixEmptyAndTrim(browser);
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    @DataBoundSetter
+    public void setSlots(int slots) {
+        this.slots = Math.max(1, slots);
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @param timeout minutes to wait for free slots before the step fails
+     */
+    @DataBoundSetter
+    public void setTimeout(int timeout) {
+        this.timeout = Math.max(1, timeout);
+    }
+
+    public String getStartNodesOn() {
+        return startNodesOn;
+    }
+
+    /**
+     * @param startNodesOn label expression of agents on which Selenium nodes may be started when capacity is missing
+     */
+    @DataBoundSetter
+    public void setStartNodesOn(String startNodesOn) {
+        this.startNodesOn = Util.fixEmptyAndTrim(startNodesOn);
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new Execution(context, this);
+    }
+
+    static class Execution extends StepExecution {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final long POLL_INTERVAL_MILLIS = 2000;
+
+        private final String browser;
+        private final int slots;
+        private final long deadline;
+        private final String startNodesOn;
+
+        private volatile boolean bodyStarted;
+        // Guarded by this, so a status callback that is already running cannot lease slots or fail the step after
+        // stop(). Also set once the step failed, so it is completed only once.
+        private transient boolean stopped;
+        private transient volatile ScheduledFuture<?> pendingPoll;
+        private transient Set<String> startedNodes;
+
+        Execution(StepContext context, SeleniumGridStep step) {
+            super(context);
+            this.browser = step.getBrowser();
+            this.slots = step.getSlots();
+            this.deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(step.getTimeout());
+            this.startNodesOn = step.getStartNodesOn();
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            log("Waiting for " + slots + " free " + describeBrowser() + " slot(s) on the Selenium Grid");
+            schedulePoll(0);
+            return false;
+        }
+
+        @Override
+        public void onResume() {
+            if (!bodyStarted) {
+                schedulePoll(0);
+            }
+        }
+
+        @Override
+        public void stop(Throwable cause) throws Exception {
+            synchronized (this) {
+                stopped = true;
+                ScheduledFuture<?> poll = pendingPoll;
+                if (poll != null) {
+                    poll.cancel(false);
+                }
+            }
+            getContext().onFailure(cause);
+        }
+
+        @Override
+        public String getStatus() {
+            return bodyStarted ? "Selenium Grid slots leased" : "Waiting for free Selenium Grid slots";
+        }
+
+        private synchronized void schedulePoll(long delayMillis) {
+            if (!stopped) {
+                pendingPoll = Timer.get().schedule(this::poll, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void poll() {
+            SeleniumGlobalProperty globalProp = ManagementLink.all().get(SeleniumGlobalProperty.class);
+            if (globalProp == null || !globalProp.getHubActive()) {
+                fail(new AbortException("The Selenium Hub is not active"));
+                return;
+            }
+            String hubUrl = globalProp.getHubUrl();
+            SeleniumHttpClient.getJsonAsync(hubUrl + "/status").whenComplete((status, error) -> {
+                if (status != null) {
+                    onStatus(hubUrl, status);
+                } else {
+                    retryOrFail("Hub not reachable: " + error.getMessage());
+                }
+            });
+        }
+
+        private synchronized void onStatus(String hubUrl, JSONObject status) {
+            if (stopped) {
+                return;
+            }
+            String reservation = GridSlots.tryReserve(status, browser, slots);
+            if (reservation == null) {
+                startNodesIfAllowed();
+                retryOrFail(GridSlots.countFreeSlots(status, browser) + " free " + describeBrowser() + " slot(s)");
+                return;
+            }
+
+            log("Leased " + slots + " " + describeBrowser() + " slot(s) on " + hubUrl);
+            bodyStarted = true;
+            try {
+                getContext()
+                        .newBodyInvoker()
+                        .withContext(EnvironmentExpander.merge(
+                                getContext().get(EnvironmentExpander.class), new GridEnvironment(hubUrl)))
+                        .withCallback(new ReleaseReservation(reservation))
+                        .start();
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                GridSlots.release(reservation);
+                fail(e);
+            }
+        }
+
+        private synchronized void retryOrFail(String reason) {
+            if (System.currentTimeMillis() >= deadline) {
+                fail(new AbortException("Timed out waiting for " + slots + " free " + describeBrowser()
+                        + " slot(s) on the Selenium Grid (" + reason + ")"));
+                return;
+            }
+            schedulePoll(POLL_INTERVAL_MILLIS);
+        }
+
+        /**
+         * Fails the step unless it was stopped or failed already, a poll finishing late must not complete it twice.
+         */
+        private synchronized void fail(Throwable cause) {
+            if (!stopped) {
+                stopped = true;
+                getContext().onFailure(cause);
+            }
+        }
+
+        /**
+         * Starts a Selenium node on one more matching agent per poll while capacity is missing. Only agents covered
+         * by a node policy are candidates, and the build must be allowed to configure the agent.
+         */
+        private void startNodesIfAllowed() {
+            SeleniumGlobalProperty globalProp = ManagementLink.all().get(SeleniumGlobalProperty.class);
+            if (startNodesOn == null || globalProp == null) {
+                return;
+            }
+            if (startedNodes == null) {
+                startedNodes = new HashSet<>();
+            }
+            Label label;
+            try {
+                label = Label.parseExpression(startNodesOn);
+            } catch (IllegalArgumentException e) {
+                log("Invalid label expression for startNodesOn: " + e.getMessage());
+                return;
+            }
+            Authentication auth = getBuildAuthentication();
+            for (Node node : Jenkins.get().getNodes()) {
+                Computer computer = node.toComputer();
+                if (computer == null
+                        || computer.isOffline()
+                        || !label.matches(node)
+                        || globalProp.getNodePolicy(node) == null
+                        || !computer.hasPermission2(auth, Computer.CONFIGURE)) {
+                    continue;
+                }
+                SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+                if (action == null
+                        || action.isQuarantined()
+                        || action.getNodeState() != NodeState.STOPPED
+                        || !canOffer(action)
+                        || !startedNodes.add(computer.getName())) {
+                    continue;
+                }
+                log("Starting Selenium node on " + computer.getName() + " for missing capacity");
+                action.addNodeRestartLog("Node start requested by withSeleniumGrid");
+                SeleniumScheduler.getBlocking().submit(action::startNodeInternal);
+                return;
+            }
+        }
+
+        /**
+         * @return the authentication the build runs as, anonymous if it cannot be determined
+         */
+        private Authentication getBuildAuthentication() {
+            try {
+                Run<?, ?> run = getContext().get(Run.class);
+                if (run != null && run.getParent() instanceof Queue.Task task) {
+                    return Tasks.getAuthenticationOf2(task);
+                }
+            } catch (IOException | InterruptedException e) {
+                // Treated as anonymous below
+            }
+            return Jenkins.ANONYMOUS2;
+        }
+
+        /**
+         * Agents without a known inventory are still candidates, the inventory is only filled once a node ran there.
+         */
+        private boolean canOffer(SeleniumAgentAction action) {
+            return browser == null || action.getBrowsers().isEmpty() || action.offersBrowser(browser);
+        }
+
+        private String describeBrowser() {
+            return browser != null ? browser : "any";
+        }
+
+        private void log(String message) {
+            try {
+                getContext().get(TaskListener.class).getLogger().println("[Selenium] " + message);
+            } catch (IOException | InterruptedException e) {
+                // Logging is best effort, the step works without a listener
+            }
+        }
+    }
+
+    private static final class GridEnvironment extends EnvironmentExpander {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String remoteUrl;
+
+        GridEnvironment(String remoteUrl) {
+            this.remoteUrl = remoteUrl;
+        }
+
+        @Override
+        public void expand(EnvVars env) {
+            env.override("SELENIUM_REMOTE_URL", remoteUrl);
+        }
+    }
+
+    private static final class ReleaseReservation extends BodyExecutionCallback.TailCall {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String reservationId;
+
+        ReleaseReservation(String reservationId) {
+            this.reservationId = reservationId;
+        }
+
+        @Override
+        protected void finished(StepContext context) {
+            GridSlots.release(reservationId);
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "withSeleniumGrid";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return Messages.SeleniumGridStep_displayName();
+        }
+
+        @Override
+        public boolean takesImplicitBlockArgument() {
+            return true;
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            // No FilePath or Launcher: the step must not need an executor while it waits
+            return Set.of(TaskListener.class);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import net.sf.json.JSONObject;
+
+/**
+ * Shared HTTP client for all calls to Selenium Hub and Node endpoints.
+ * Connections are kept alive between calls, and every request has a connect and a request timeout,
+ * so a half-open hub cannot block request handler threads or health checks.
+ */
+public final class SeleniumHttpClient {
+
+    public static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(3);
+    public static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration DOWNLOAD_TIMEOUT = Duration.ofMinutes(5);
+
+    private SeleniumHttpClient() {}
+
+    // Lazy holder, the class is also loaded on agents for node probes
+    private static final class Holder {
+        private static final HttpClient CLIENT = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    private static HttpRequest request(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    /**
+     * @return the response body
+     * @throws IOException if the endpoint cannot be reached in time or does not answer with a 2xx status
+     */
+    public static String get(String url) throws IOException {
+        try {
+            return checkStatus(url, Holder.CLIENT.send(request(url), HttpResponse.BodyHandlers.ofString()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling " + url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid URL: " + url, e);
+        }
+    }
+
+    /**
+     * Sends a GET request with extra headers and returns the response for any status code, so callers can handle
+     * e.g. {@code 304 Not Modified} of a conditional request themselves.
+     */
+    public static HttpResponse<String> getResponse(String url, Map<String, String> headers) throws IOException {
+        try {
+            HttpRequest.Builder builder =
+                    HttpRequest.newBuilder(URI.create(url)).timeout(REQUEST_TIMEOUT).GET();
+            headers.forEach(builder::header);
+            return Holder.CLIENT.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling " + url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid URL: " + url, e);
+        }
+    }
+
+    public static JSONObject getJson(String url) throws IOException {
+        return JSONObject.fromObject(get(url));
+    }
+
+    /**
+     * Posts a JSON body, e.g. a GraphQL query to the hub, and returns the JSON response.
+     */
+    public static JSONObject postJson(String url, JSONObject body) throws IOException {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build();
+            return JSONObject.fromObject(
+                    checkStatus(url, Holder.CLIENT.send(request, HttpResponse.BodyHandlers.ofString())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling " + url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid URL: " + url, e);
+        }
+    }
+
+    /**
+     * Posts an empty body with extra headers, e.g. a drain request to a node.
+     *
+     * @throws IOException if the endpoint cannot be reached in time or does not answer with a 2xx status
+     */
+    public static void post(String url, Map<String, String> headers) throws IOException {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(REQUEST_TIMEOUT)
+                    .POST(HttpRequest.BodyPublishers.noBody());
+            headers.forEach(builder::header);
+            checkStatus(url, Holder.CLIENT.send(builder.build(), HttpResponse.BodyHandlers.ofString()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling " + url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid URL: " + url, e);
+        }
+    }
+
+    /**
+     * Downloads a file, e.g. a Selenium server JAR. Unlike the other requests the whole transfer, not only the
+     * response headers, has to finish within {@link #DOWNLOAD_TIMEOUT}.
+     *
+     * @throws IOException if the download fails, times out or does not answer with a 2xx status
+     */
+    public static void download(String url, Path target) throws IOException {
+        CompletableFuture<HttpResponse<Path>> response;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(DOWNLOAD_TIMEOUT)
+                    .GET()
+                    .build();
+            response = Holder.CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofFile(target));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid URL: " + url, e);
+        }
+        try {
+            int status = response.get(DOWNLOAD_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS).statusCode();
+            if (status / 100 != 2) {
+                throw new IOException("HTTP " + status + " from " + url);
+            }
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading " + url);
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            throw new IOException("Download of " + url + " did not finish within " + DOWNLOAD_TIMEOUT, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not download " + url, e.getCause());
+        }
+    }
+
+    public static CompletableFuture<JSONObject> getJsonAsync(String url) {
+        try {
+            return Holder.CLIENT
+                    .sendAsync(request(url), HttpResponse.BodyHandlers.ofString())
+                    .thenApply(response -> {
+                        try {
+                            return JSONObject.fromObject(checkStatus(url, response));
+                        } catch (IOException e) {
+                            throw new CompletionException(e);
+                        }
+                    });
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new IOException("Invalid URL: " + url, e));
+        }
+    }
+
+    private static String checkStatus(String url, HttpResponse<String> response) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("HTTP " + response.statusCode() + " from " + url);
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.ManagementLink;
+import hudson.model.TaskListener;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+
+/**
+ * Periodic work that checks the controller hub and the standby hub every 10 seconds and fails over between them.
+ * Does nothing while no standby hub is configured.
+ */
+@Extension
+public class SeleniumHubFailoverCheck extends AsyncPeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(SeleniumHubFailoverCheck.class.getName());
+
+    private static final long RECURRENCE_PERIOD =
+            SystemProperties.getLong(SeleniumHubFailoverCheck.class.getName() + ".recurrenceSeconds", 10L) * 1000L;
+
+    public SeleniumHubFailoverCheck() {
+        super("Selenium Hub Failover Check");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return RECURRENCE_PERIOD;
+    }
+
+    @Override
+    protected Level getNormalLoggingLevel() {
+        return Level.FINEST;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        SeleniumGlobalProperty globalProp = ManagementLink.all().get(SeleniumGlobalProperty.class);
+        if (globalProp != null) {
+            try {
+                globalProp.getHubFailover().check();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Error checking Selenium Hub failover", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.ManagementLink;
+import hudson.model.TaskListener;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+
+/**
+ * Periodic work that polls the hub every few seconds and adds one sample per minute to the {@link HubMetricsStore}:
+ * sessions started during the minute, average length of the session queue and busy slots of the grid and of every
+ * node.
+ * <p>
+ * The hub has no cumulative session counter, so started sessions are counted from session ids that were not present
+ * in the previous poll. Sessions shorter than the poll period can still be missed, which is why it is kept short.
+ */
+@Extension
+public class SeleniumHubMetricsSampler extends AsyncPeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(SeleniumHubMetricsSampler.class.getName());
+
+    private static final long RECURRENCE_PERIOD =
+            SystemProperties.getLong(SeleniumHubMetricsSampler.class.getName() + ".pollSeconds", 5L) * 1000L;
+
+    private static final long SAMPLE_PERIOD = 60 * 1000L;
+
+    private static final String QUEUE_QUERY = "{ grid { sessionQueueSize } }";
+
+    private Set<String> previousSessions;
+
+    // Polls accumulated into the sample of the current minute
+    private long sampleStart;
+    private int started;
+    private long queueSum;
+    private int queuePolls;
+
+    public SeleniumHubMetricsSampler() {
+        super("Selenium Hub Metrics Sampler");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return RECURRENCE_PERIOD;
+    }
+
+    @Override
+    protected Level getNormalLoggingLevel() {
+        return Level.FINEST;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        SeleniumGlobalProperty globalProp = ManagementLink.all().get(SeleniumGlobalProperty.class);
+        if (globalProp == null || !globalProp.getHubActive()) {
+            previousSessions = null;
+            sampleStart = 0;
+            return;
+        }
+
+        String hubUrl = globalProp.getHubUrl();
+        JSONObject status;
+        try {
+            status = SeleniumHttpClient.getJson(hubUrl + "/status");
+        } catch (IOException e) {
+            // The health check takes care of an unreachable hub, leave a gap in the series
+            LOGGER.log(Level.FINE, "Could not sample Selenium hub status", e);
+            previousSessions = null;
+            return;
+        }
+
+        Set<String> sessions = new HashSet<>();
+        Map<String, int[]> nodeSlots = new LinkedHashMap<>();
+        int busy = 0;
+        int total = 0;
+        for (JSONObject node : GridSlots.getNodes(status)) {
+            int nodeBusy = 0;
+            int nodeTotal = 0;
+            for (JSONObject slot : GridSlots.getSlots(node)) {
+                nodeTotal++;
+                if (!GridSlots.isFree(slot)) {
+                    nodeBusy++;
+                    String sessionId = slot.getJSONObject("session").optString("sessionId", "");
+                    if (!sessionId.isEmpty()) {
+                        sessions.add(sessionId);
+                    }
+                }
+            }
+            nodeSlots.put(node.optString("uri", node.optString("id")), new int[] {nodeBusy, nodeTotal});
+            busy += nodeBusy;
+            total += nodeTotal;
+        }
+
+        long now = System.currentTimeMillis();
+        if (sampleStart == 0) {
+            sampleStart = now;
+            started = 0;
+            queueSum = 0;
+            queuePolls = 0;
+        }
+        if (previousSessions != null) {
+            for (String session : sessions) {
+                if (!previousSessions.contains(session)) {
+                    started++;
+                }
+            }
+        }
+        previousSessions = sessions;
+        int queue = getQueueSize(hubUrl);
+        if (queue >= 0) {
+            queueSum += queue;
+            queuePolls++;
+        }
+
+        if (now - sampleStart >= SAMPLE_PERIOD) {
+            // Little's law needs the average queue length over the minute, not the length at its end
+            int averageQueue = queuePolls > 0 ? (int) Math.round((double) queueSum / queuePolls) : -1;
+            HubMetricsStore.get().add(now, started, averageQueue, busy, total, nodeSlots);
+            sampleStart = 0;
+        }
+    }
+
+    /**
+     * The queue length is only available through the GraphQL endpoint of the hub.
+     *
+     * @return the number of waiting session requests, -1 if unknown
+     */
+    private static int getQueueSize(String hubUrl) {
+        try {
+            JSONObject body = new JSONObject();
+            body.put("query", QUEUE_QUERY);
+            JSONObject response = SeleniumHttpClient.postJson(hubUrl + "/graphql", body);
+            return response.getJSONObject("data").getJSONObject("grid").getInt("sessionQueueSize");
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Could not read Selenium session queue size", e);
+            return -1;
+        }
+    }
+}
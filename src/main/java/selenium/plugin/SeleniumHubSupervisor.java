@@ -0,0 +1,192 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.console.LineTransformationOutputStream;
+import hudson.util.FormValidation;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.Timer;
+import org.kohsuke.stapler.HttpResponse;
+
+/**
+ * Watches the Selenium Hub process and restarts it as soon as it exits unexpectedly.
+ * The hub output is kept in a bounded buffer so the reason of a crash stays visible.
+ * {@link SeleniumHubHealthCheck} remains as a fallback for hubs that hang without exiting.
+ */
+public class SeleniumHubSupervisor {
+
+    private static final Logger LOGGER = Logger.getLogger(SeleniumHubSupervisor.class.getName());
+
+    private static final int OUTPUT_LINES = 200;
+
+    private final SeleniumGlobalProperty globalProperty;
+    private final ProcessOutputBuffer output = new ProcessOutputBuffer(OUTPUT_LINES);
+    private final RestartBackoff backoff = RestartBackoff.forHub();
+
+    private volatile SeleniumProcess watchedProcess;
+    private volatile ScheduledFuture<?> pendingRestart;
+    private volatile Integer lastExitCode;
+    private volatile Date lastExitTime;
+
+    public SeleniumHubSupervisor(SeleniumGlobalProperty globalProperty) {
+        this.globalProperty = globalProperty;
+    }
+
+    /**
+     * @return the stream to pass as output of a new hub process, its lines end up in the bounded buffer
+     */
+    public OutputStream newOutputStream() {
+        return new LineTransformationOutputStream() {
+            @Override
+            protected void eol(byte[] b, int len) {
+                String line = trimEOL(new String(b, 0, len, StandardCharsets.UTF_8));
+                output.add(line);
+                LOGGER.log(Level.FINE, "Hub: {0}", line);
+            }
+        };
+    }
+
+    /**
+     * Starts supervising a freshly started hub process.
+     */
+    public void watch(SeleniumProcess process) {
+        watchedProcess = process;
+        output.add("=== Selenium Hub started at " + new Date() + " ===");
+        process.onExit().thenAccept(exitCode -> onExit(process, exitCode));
+    }
+
+    /**
+     * Starts supervising a hub that was started by an earlier controller session.
+     * Its output and exit code are not available, only the exit itself is detected.
+     */
+    public void adopt(SeleniumProcess process) {
+        watchedProcess = process;
+        output.add("=== Adopted Selenium Hub (PID " + process.getPid() + ") at " + new Date() + " ===");
+        process.onExit().thenAccept(exitCode -> onExit(process, exitCode));
+    }
+
+    /**
+     * Stops supervising the current hub process, e.g. before it is stopped on purpose.
+     */
+    public synchronized void unwatch() {
+        watchedProcess = null;
+        ScheduledFuture<?> restart = pendingRestart;
+        if (restart != null) {
+            restart.cancel(false);
+            pendingRestart = null;
+        }
+    }
+
+    /**
+     * Forgets the restart history, called on manual starts.
+     */
+    public void reset() {
+        backoff.reset();
+    }
+
+    private void onExit(SeleniumProcess process, Integer exitCode) {
+        if (!process.equals(watchedProcess)) {
+            // Stopped on purpose or already replaced by a newer process
+            return;
+        }
+        watchedProcess = null;
+        lastExitCode = exitCode;
+        lastExitTime = new Date();
+        String exitText = exitCode != null ? "with exit code " + exitCode : "(exit code unknown for adopted process)";
+        LOGGER.log(Level.WARNING, "Selenium Hub exited unexpectedly {0}", exitText);
+        globalProperty.addHubRestartLog("Selenium Hub exited unexpectedly " + exitText);
+        long startTime = process.getStartTime();
+        long uptime = startTime >= 0 ? lastExitTime.getTime() - startTime : -1L;
+        SeleniumEventJournal.record(
+                SeleniumEvent.HUB, SeleniumEvent.Type.HUB_EXITED, "Selenium Hub exited " + exitText, uptime);
+        scheduleRestart("Hub exited " + exitText);
+    }
+
+    private synchronized void scheduleRestart(String reason) {
+        if (!globalProperty.getHubActive()) {
+            return;
+        }
+        if (backoff.isQuarantined()) {
+            globalProperty.addHubRestartLog(
+                    "Hub is quarantined, skipping automatic restart: " + backoff.getQuarantineReason());
+            return;
+        }
+        if (pendingRestart != null) {
+            return;
+        }
+
+        long delay = backoff.getRemainingDelay(System.currentTimeMillis());
+        globalProperty.addHubRestartLog("Restarting Selenium Hub in " + delay + " ms");
+        pendingRestart = Timer.get().schedule(() -> restart(reason), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void restart(String reason) {
+        synchronized (this) {
+            pendingRestart = null;
+            if (!globalProperty.getHubActive() || watchedProcess != null) {
+                return;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        HttpResponse result = globalProperty.startHubInternal();
+        if (result instanceof FormValidation validation && validation.kind == FormValidation.Kind.ERROR) {
+            backoff.recordRestart(now, validation.getMessage());
+            scheduleRestart(validation.getMessage());
+        } else {
+            backoff.recordRestart(now, reason);
+            globalProperty.addHubRestartLog("Selenium Hub restarted by supervisor");
+        }
+
+        if (backoff.isQuarantined()) {
+            LOGGER.log(Level.WARNING, "Selenium Hub quarantined: {0}", backoff.getQuarantineReason());
+            globalProperty.addHubRestartLog("Hub quarantined: " + backoff.getQuarantineReason());
+            SeleniumEventJournal.record(
+                    SeleniumEvent.HUB, SeleniumEvent.Type.HUB_QUARANTINED, backoff.getQuarantineReason());
+        }
+    }
+
+    public boolean isRestartPending() {
+        return pendingRestart != null;
+    }
+
+    public boolean isQuarantined() {
+        return backoff.isQuarantined();
+    }
+
+    public String getQuarantineReason() {
+        return backoff.getQuarantineReason();
+    }
+
+    public Integer getLastExitCode() {
+        return lastExitCode;
+    }
+
+    public Date getLastExitTime() {
+        return lastExitTime;
+    }
+
+    public List<String> getOutputLines() {
+        return output.getLines();
+    }
+}
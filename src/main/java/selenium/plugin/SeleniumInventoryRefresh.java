@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+
+/**
+ * Periodic work that refreshes the browser inventory of all online agents.
+ * Runs every 30 minutes.
+ */
+@Extension
+public class SeleniumInventoryRefresh extends AsyncPeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(SeleniumInventoryRefresh.class.getName());
+
+    private static final long RECURRENCE_PERIOD = 30 * 60 * 1000L;
+
+    public SeleniumInventoryRefresh() {
+        super("Selenium Browser Inventory");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return RECURRENCE_PERIOD;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        LOGGER.log(Level.FINE, "Starting Selenium browser inventory refresh");
+
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return;
+        }
+
+        for (Computer computer : jenkins.getComputers()) {
+            if (computer instanceof Jenkins.MasterComputer || computer.isOffline()) {
+                continue;
+            }
+
+            SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+            if (action != null) {
+                try {
+                    action.refreshBrowserInventory();
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Error refreshing browser inventory of " + computer.getName(), e);
+                }
+            }
+        }
+
+        LOGGER.log(Level.FINE, "Completed Selenium browser inventory refresh");
+    }
+}
@@ -19,15 +19,13 @@ import hudson.Extension;
 import hudson.model.Computer;
 import hudson.model.RestartListener;
 import java.io.IOException;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.ArrayList;
+import java.util.List;
 import jenkins.model.Jenkins;
 
 @Extension
 public class SeleniumLifecycleHandler extends RestartListener {
 
-    private static final Logger LOGGER = Logger.getLogger(SeleniumLifecycleHandler.class.getName());
-
     @Override
     public boolean isReadyToRestart() throws IOException, InterruptedException {
         return true;
@@ -42,15 +40,14 @@ public class SeleniumLifecycleHandler extends RestartListener {
         Jenkins jenkins = Jenkins.getInstanceOrNull();
         if (jenkins == null) return;
 
+        List<SeleniumAgentAction> actions = new ArrayList<>();
         for (Computer computer : jenkins.getComputers()) {
             SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
-            try {
-                if (action != null && action.getNodeActive()) {
-                    action.stopNode();
-                }
-            } catch (Exception e) {
-                LOGGER.log(Level.WARNING, "Error stopping Selenium node on " + computer.getName(), e);
+            if (action != null) {
+                actions.add(action);
             }
         }
+        // Nodes that do not stop in time are reported in their restart log
+        NodeShutdownCoordinator.shutdown(actions);
     }
 }
@@ -67,6 +67,11 @@ public class SeleniumNodeHealthCheck extends AsyncPeriodicWork {
             }
         }
 
+        int evicted = SeleniumAgentPropertyLink.evictRemovedAgents();
+        if (evicted > 0) {
+            LOGGER.log(Level.FINE, "Evicted {0} Selenium agent actions of removed agents", evicted);
+        }
+
         LOGGER.log(Level.FINE, "Completed Selenium node health check");
     }
 }
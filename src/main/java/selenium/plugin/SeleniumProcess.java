@@ -0,0 +1,47 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A Selenium hub or node process started through a {@link SeleniumProcessBackend}.
+ */
+public interface SeleniumProcess {
+
+    /**
+     * @return the PID of the process, {@code -1} if the backend does not know it
+     */
+    long getPid();
+
+    /**
+     * @return the start time in milliseconds, {@code -1} if it is not known
+     */
+    long getStartTime();
+
+    boolean isAlive() throws IOException, InterruptedException;
+
+    /**
+     * Stops the process and waits until it is gone.
+     */
+    void kill() throws IOException, InterruptedException;
+
+    /**
+     * @return completes once the process ended, with its exit code or {@code null} if the exit code is not known
+     */
+    CompletableFuture<Integer> onExit();
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import hudson.FilePath;
+import hudson.model.Computer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts and stops Selenium processes on the controller or an agent. Hub and node lifecycles only talk to this
+ * extension point, so they can run against a fake backend in tests and benchmarks, and faster launchers can be
+ * added without changing the orchestration.
+ * <p>
+ * A {@code null} computer stands for the controller itself. {@link #get(Computer)} picks the backend with the
+ * highest ordinal that is applicable.
+ */
+public abstract class SeleniumProcessBackend implements ExtensionPoint {
+
+    /**
+     * @param computer the agent, or {@code null} for the controller
+     */
+    public abstract boolean isApplicable(Computer computer);
+
+    /**
+     * Starts a long-running process in the background.
+     *
+     * @param pwd working directory, {@code null} for the default
+     * @param output receives stdout and stderr of the process
+     */
+    public abstract SeleniumProcess start(
+            Computer computer, List<String> cmd, FilePath pwd, Map<String, String> env, OutputStream output)
+            throws IOException, InterruptedException;
+
+    /**
+     * Starts a long-running process that is known by a name such as {@code node}, writing its output to a log file.
+     * Backends that keep track of their processes themselves use the name to find the process again with
+     * {@link #attach(Computer, String)}.
+     *
+     * @param log the log file, {@code null} to discard the output
+     */
+    public SeleniumProcess start(
+            Computer computer, String name, List<String> cmd, FilePath pwd, Map<String, String> env, FilePath log)
+            throws IOException, InterruptedException {
+        return start(computer, cmd, pwd, env, log != null ? log.write() : OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Finds a process started with {@link #start(Computer, String, List, FilePath, Map, FilePath)} that is still
+     * running, e.g. after a controller restart.
+     *
+     * @return the process, {@code null} if there is none or the backend does not track its processes
+     */
+    public SeleniumProcess attach(Computer computer, String name) throws IOException, InterruptedException {
+        return null;
+    }
+
+    /**
+     * Runs a short command to completion.
+     *
+     * @return the exit code
+     */
+    public abstract int run(Computer computer, List<String> cmd, OutputStream output)
+            throws IOException, InterruptedException;
+
+    /**
+     * Kills a process by PID, e.g. one left over from an earlier controller session.
+     */
+    public abstract void kill(Computer computer, long pid) throws IOException, InterruptedException;
+
+    /**
+     * Kills whatever process listens on a port.
+     *
+     * @return the killed PIDs, empty if there were none, or {@code null} if the backend cannot tell
+     */
+    public abstract String killPort(Computer computer, int port) throws IOException, InterruptedException;
+
+    /**
+     * Maps the port a process was started with to the port it actually listens on. Backends that run several agents
+     * on one host, such as the fake backend of the tests, give each process its own port.
+     *
+     * @return the port to probe, by default the requested one
+     */
+    public int getListenPort(Computer computer, int port) {
+        return port;
+    }
+
+    /**
+     * Looks up the PID of the newest Selenium process started from a JAR in a role such as {@code node}.
+     *
+     * @return the PID, {@code -1} if none was found
+     */
+    public abstract long findPid(Computer computer, String jar, String role) throws IOException, InterruptedException;
+
+    public static SeleniumProcessBackend get(Computer computer) {
+        for (SeleniumProcessBackend backend : ExtensionList.lookup(SeleniumProcessBackend.class)) {
+            if (backend.isApplicable(computer)) {
+                return backend;
+            }
+        }
+        throw new IllegalStateException("No Selenium process backend for "
+                + (computer != null ? computer.getName() : "the controller"));
+    }
+}
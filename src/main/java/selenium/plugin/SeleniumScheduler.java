@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.init.Terminator;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.security.ImpersonatingExecutorService;
+import jenkins.security.ImpersonatingScheduledExecutorService;
+import jenkins.util.SystemProperties;
+
+/**
+ * Shared scheduler for background work on Selenium nodes, such as delayed start checks.
+ * The pools are bounded, so a burst of agent events cannot create an unbounded number of threads.
+ * <p>
+ * The scheduler only runs short ticks such as journal flushes, failover checks and exit polls. Work that blocks
+ * for a long time, like node starts, hub restarts and downloads, goes to the separate {@link #getBlocking()} pool,
+ * so a few slow starts cannot hold up the ticks.
+ */
+public final class SeleniumScheduler {
+
+    private static final Logger LOGGER = Logger.getLogger(SeleniumScheduler.class.getName());
+
+    private static final int POOL_SIZE = 4;
+
+    private static final int BLOCKING_POOL_SIZE =
+            SystemProperties.getInteger(SeleniumScheduler.class.getName() + ".blockingPoolSize", 8);
+
+    private static final Map<String, ScheduledFuture<?>> pendingTasks = new ConcurrentHashMap<>();
+
+    private static ScheduledExecutorService executor;
+
+    private static ExecutorService blockingExecutor;
+
+    private SeleniumScheduler() {}
+
+    public static synchronized ScheduledExecutorService get() {
+        if (executor == null) {
+            executor = new ImpersonatingScheduledExecutorService(
+                    Executors.newScheduledThreadPool(
+                            POOL_SIZE, new NamingThreadFactory(new DaemonThreadFactory(), "SeleniumScheduler")),
+                    ACL.SYSTEM2);
+        }
+        return executor;
+    }
+
+    /**
+     * Pool for node starts, restarts and downloads that may block for minutes. Tasks queue up once all threads are
+     * busy.
+     */
+    public static synchronized ExecutorService getBlocking() {
+        if (blockingExecutor == null) {
+            blockingExecutor = new ImpersonatingExecutorService(
+                    Executors.newFixedThreadPool(
+                            BLOCKING_POOL_SIZE,
+                            new NamingThreadFactory(new DaemonThreadFactory(), "SeleniumSchedulerBlocking")),
+                    ACL.SYSTEM2);
+        }
+        return blockingExecutor;
+    }
+
+    /**
+     * Schedules a short task unless one with the same key is still waiting to run.
+     * Repeated events for the same agent therefore collapse into a single run.
+     *
+     * @return {@code true} if the task was scheduled, {@code false} if a pending task was reused
+     */
+    public static boolean scheduleOnce(String key, Runnable task, long delay, TimeUnit unit) {
+        return scheduleOnce(key, task, delay, unit, false);
+    }
+
+    /**
+     * Like {@link #scheduleOnce(String, Runnable, long, TimeUnit)}, but runs the task in the {@link #getBlocking()}
+     * pool once the delay has passed.
+     */
+    public static boolean scheduleBlockingOnce(String key, Runnable task, long delay, TimeUnit unit) {
+        return scheduleOnce(key, task, delay, unit, true);
+    }
+
+    private static boolean scheduleOnce(String key, Runnable task, long delay, TimeUnit unit, boolean blocking) {
+        boolean[] scheduled = {false};
+        pendingTasks.compute(key, (k, existing) -> {
+            if (existing != null && !existing.isDone()) {
+                return existing;
+            }
+            scheduled[0] = true;
+            return get().schedule(
+                            () -> {
+                                // Removed before running, so events arriving during the run schedule a new check
+                                pendingTasks.remove(k);
+                                if (blocking) {
+                                    getBlocking().execute(task);
+                                } else {
+                                    task.run();
+                                }
+                            },
+                            delay,
+                            unit);
+        });
+        return scheduled[0];
+    }
+
+    public static int getPendingTaskCount() {
+        return pendingTasks.size();
+    }
+
+    @Terminator
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            LOGGER.log(Level.FINE, "Shutting down Selenium scheduler with {0} pending tasks", pendingTasks.size());
+            executor.shutdownNow();
+            executor = null;
+            pendingTasks.clear();
+        }
+        if (blockingExecutor != null) {
+            blockingExecutor.shutdownNow();
+            blockingExecutor = null;
+        }
+    }
+}
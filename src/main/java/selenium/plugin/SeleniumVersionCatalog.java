@@ -0,0 +1,314 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Util;
+import hudson.XmlFile;
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * Known Selenium releases, kept in {@code JENKINS_HOME/selenium-versions.xml} and refreshed in the background, so
+ * the version list of the settings page never waits for the network.
+ * <p>
+ * The upstream is the GitHub releases API, a mirror answering in the same format, or a directory on the controller
+ * with {@code selenium-server-<version>.jar} files. Requests to an API are conditional on the ETag of the last
+ * answer, so an unchanged list costs neither bandwidth nor GitHub rate limit.
+ */
+public final class SeleniumVersionCatalog {
+
+    private static final Logger LOGGER = Logger.getLogger(SeleniumVersionCatalog.class.getName());
+
+    // Releases are listed newest first, unlike tags which are ordered by name
+    static final String GITHUB_RELEASES_URL = "https://api.github.com/repos/SeleniumHQ/selenium/releases?per_page=100";
+
+    /** Refresh interval, form fills trigger a refresh when the list is older. */
+    static final long MAX_AGE_MILLIS = 6 * 60 * 60 * 1000L;
+
+    /** Delay after the first failed refresh, doubled with each further failure up to {@link #MAX_AGE_MILLIS}. */
+    static final long RETRY_MILLIS = 60 * 1000L;
+
+    private static final int MAX_PAGES = 5;
+
+    private static final Pattern TAG = Pattern.compile("^selenium-(\\d+\\.\\d+\\.\\d+)$");
+    private static final Pattern JAR = Pattern.compile("^selenium-server-(\\d+\\.\\d+\\.\\d+)\\.jar$");
+    // Two characters at least, so a Windows drive such as C: is no scheme
+    private static final Pattern URL_SCHEME = Pattern.compile("^[A-Za-z][A-Za-z0-9+.-]+:.*");
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"next\"");
+
+    private static final List<String> DEFAULT_VERSIONS = List.of("4.33.0", "4.32.0", "4.31.0", "4.30.0");
+
+    private static SeleniumVersionCatalog instance;
+
+    private List<String> versions = new ArrayList<>();
+    private String upstream;
+    private String etag;
+    private long lastRefresh;
+
+    private transient volatile String lastError;
+    // A failed refresh does not advance lastRefresh, so page loads wait for the backoff before trying again
+    private transient String failedUpstream;
+    private transient int failures;
+    private transient long retryAt;
+
+    private SeleniumVersionCatalog() {}
+
+    public static synchronized SeleniumVersionCatalog get() {
+        if (instance == null) {
+            instance = load();
+        }
+        return instance;
+    }
+
+    private static SeleniumVersionCatalog load() {
+        SeleniumVersionCatalog catalog = new SeleniumVersionCatalog();
+        XmlFile file = getFile();
+        if (file.exists()) {
+            try {
+                file.unmarshal(catalog);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not load Selenium version catalogue, starting empty", e);
+                return new SeleniumVersionCatalog();
+            }
+            if (catalog.versions == null) {
+                catalog.versions = new ArrayList<>();
+            }
+        }
+        return catalog;
+    }
+
+    private static XmlFile getFile() {
+        return new XmlFile(new File(Jenkins.get().getRootDir(), "selenium-versions.xml"));
+    }
+
+    /**
+     * @return known versions, newest first, or a built-in list if the upstream was never reached
+     */
+    public synchronized List<String> getVersions() {
+        return versions.isEmpty() ? DEFAULT_VERSIONS : List.copyOf(versions);
+    }
+
+    public synchronized boolean isDefaultList() {
+        return versions.isEmpty();
+    }
+
+    public synchronized long getLastRefresh() {
+        return lastRefresh;
+    }
+
+    public synchronized String getLastRefreshAge() {
+        return Util.getTimeSpanString(System.currentTimeMillis() - lastRefresh);
+    }
+
+    public synchronized String getUpstream() {
+        return upstream;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public synchronized boolean isStale(String source) {
+        long now = System.currentTimeMillis();
+        String description = describe(source);
+        if (description.equals(failedUpstream) && now < retryAt) {
+            return false;
+        }
+        return now - lastRefresh > MAX_AGE_MILLIS || !description.equals(upstream);
+    }
+
+    /**
+     * Queues a refresh unless one is already waiting.
+     */
+    public void refreshAsync(String source) {
+        SeleniumScheduler.scheduleOnce("selenium-version-catalog", () -> refresh(source), 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Fetches the versions from the configured source, which is an API URL, a directory or {@code null} for GitHub.
+     */
+    void refresh(String source) {
+        String description = describe(source);
+        String knownEtag;
+        synchronized (this) {
+            knownEtag = description.equals(upstream) ? etag : null;
+        }
+        try {
+            Set<String> found = new LinkedHashSet<>();
+            String newEtag = null;
+            if (!isUrl(description) && !isDirectory(description)) {
+                throw new IOException("Not an http(s) URL or absolute directory: " + description);
+            }
+            if (isDirectory(description)) {
+                File[] files = new File(description).listFiles();
+                if (files == null) {
+                    throw new IOException("Cannot list " + description);
+                }
+                for (File f : files) {
+                    Matcher m = JAR.matcher(f.getName());
+                    if (m.matches()) {
+                        found.add(m.group(1));
+                    }
+                }
+            } else {
+                String url = description;
+                for (int page = 0; url != null && page < MAX_PAGES; page++) {
+                    Map<String, String> headers = new LinkedHashMap<>();
+                    headers.put("Accept", "application/vnd.github+json");
+                    if (page == 0 && knownEtag != null) {
+                        headers.put("If-None-Match", knownEtag);
+                    }
+                    HttpResponse<String> response = SeleniumHttpClient.getResponse(url, headers);
+                    if (page == 0 && response.statusCode() == 304) {
+                        // New releases show up on the first page, so an unchanged first page means an unchanged list
+                        LOGGER.log(Level.FINE, "Selenium versions from {0} are unchanged", description);
+                        markRefreshed(description, null, null);
+                        return;
+                    }
+                    if (response.statusCode() / 100 != 2) {
+                        String remaining = response.headers()
+                                .firstValue("X-RateLimit-Remaining")
+                                .orElse("");
+                        throw new IOException("HTTP " + response.statusCode() + " from " + url
+                                + ("0".equals(remaining) ? " (rate limit exceeded)" : ""));
+                    }
+                    if (page == 0) {
+                        newEtag = response.headers().firstValue("ETag").orElse(null);
+                    }
+                    for (Object entry : JSONArray.fromObject(response.body())) {
+                        JSONObject release = (JSONObject) entry;
+                        // Mirrors of the tags API answer with "name" instead of "tag_name"
+                        Matcher m = TAG.matcher(release.optString("tag_name", release.optString("name")));
+                        if (m.matches() && !release.optBoolean("prerelease") && !release.optBoolean("draft")) {
+                            found.add(m.group(1));
+                        }
+                    }
+                    url = nextPage(response);
+                }
+            }
+            if (found.isEmpty()) {
+                throw new IOException("No Selenium versions found at " + description);
+            }
+            List<String> sorted = new ArrayList<>(found);
+            sorted.sort(VERSION_ORDER.reversed());
+            markRefreshed(description, newEtag, sorted);
+        } catch (IOException | RuntimeException e) {
+            // The previous list stays in use, the next form fill or periodic run after the backoff tries again
+            lastError = e.getMessage();
+            markFailed(description);
+            LOGGER.log(Level.INFO, "Could not refresh Selenium versions from " + description, e);
+        }
+    }
+
+    private synchronized void markFailed(String description) {
+        failures = description.equals(failedUpstream) ? failures + 1 : 1;
+        failedUpstream = description;
+        retryAt = System.currentTimeMillis() + Math.min(MAX_AGE_MILLIS, RETRY_MILLIS << Math.min(failures - 1, 16));
+    }
+
+    private synchronized void markRefreshed(String description, String newEtag, List<String> newVersions) {
+        if (newVersions != null) {
+            versions = newVersions;
+            etag = newEtag;
+        }
+        upstream = description;
+        lastRefresh = System.currentTimeMillis();
+        lastError = null;
+        failedUpstream = null;
+        failures = 0;
+        try {
+            getFile().write(this);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save Selenium version catalogue", e);
+        }
+    }
+
+    private static String nextPage(HttpResponse<String> response) {
+        for (String link : response.headers().allValues("Link")) {
+            Matcher m = NEXT_LINK.matcher(link);
+            if (m.find()) {
+                return m.group(1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the source is an API reached over HTTP(S); other URL schemes are no valid source
+     */
+    static boolean isUrl(String source) {
+        String s = source != null ? source.toLowerCase(Locale.ROOT) : "";
+        return s.startsWith("http://") || s.startsWith("https://");
+    }
+
+    /**
+     * @return whether the source is an absolute path on the controller without any URL scheme
+     */
+    static boolean isDirectory(String source) {
+        return source != null
+                && !isUrl(source)
+                && !URL_SCHEME.matcher(source).matches()
+                && new File(source).isAbsolute();
+    }
+
+    /**
+     * @return the server JAR of a version in a directory source, {@code null} if the source is no directory or the
+     *     JAR is missing there
+     */
+    static File getServerJar(String source, String version) {
+        String s = Util.fixEmptyAndTrim(source);
+        if (!isDirectory(s)) {
+            return null;
+        }
+        File jar = new File(s, "selenium-server-" + version + ".jar");
+        return jar.isFile() ? jar : null;
+    }
+
+    private static String describe(String source) {
+        String s = Util.fixEmptyAndTrim(source);
+        return s != null ? s : GITHUB_RELEASES_URL;
+    }
+
+    /** Orders versions such as {@code 4.9.0} and {@code 4.10.0} by their numbers. */
+    static final Comparator<String> VERSION_ORDER = (a, b) -> {
+        String[] x = a.split("\\.");
+        String[] y = b.split("\\.");
+        for (int i = 0; i < Math.min(x.length, y.length); i++) {
+            int c = Integer.compare(Integer.parseInt(x[i]), Integer.parseInt(y[i]));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(x.length, y.length);
+    };
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.ManagementLink;
+import hudson.model.TaskListener;
+import java.util.logging.Level;
+
+/**
+ * Periodic work that refreshes the {@link SeleniumVersionCatalog} every 6 hours.
+ */
+@Extension
+public class SeleniumVersionRefresh extends AsyncPeriodicWork {
+
+    public SeleniumVersionRefresh() {
+        super("Selenium Version Refresh");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return SeleniumVersionCatalog.MAX_AGE_MILLIS;
+    }
+
+    @Override
+    protected Level getNormalLoggingLevel() {
+        return Level.FINEST;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        SeleniumGlobalProperty globalProp = ManagementLink.all().get(SeleniumGlobalProperty.class);
+        SeleniumVersionCatalog.get().refresh(globalProp != null ? globalProp.getVersionSource() : null);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Launcher;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backend that runs the helper commands (kill, port cleanup, PID lookup) as shell commands through a
+ * {@link Launcher}, with one variant for Unix and one for Windows.
+ */
+public abstract class ShellProcessBackend extends SeleniumProcessBackend {
+
+    protected abstract Launcher createLauncher(Computer computer) throws IOException;
+
+    @Override
+    public int run(Computer computer, List<String> cmd, OutputStream output) throws IOException, InterruptedException {
+        return createLauncher(computer)
+                .launch()
+                .cmds(cmd)
+                .stdout(output)
+                .stderr(output)
+                .join();
+    }
+
+    @Override
+    public void kill(Computer computer, long pid) throws IOException, InterruptedException {
+        if (pid <= 1) {
+            return;
+        }
+        Launcher launcher = createLauncher(computer);
+        if (launcher.isUnix()) {
+            launcher.launch()
+                    .cmds("sh", "-c", "kill -9 " + pid + " || true")
+                    .stdout(TaskListener.NULL)
+                    .join();
+        } else {
+            launcher.launch()
+                    .cmds("cmd", "/c", "taskkill /PID " + pid + " /F 2>nul || ver > nul")
+                    .stdout(TaskListener.NULL)
+                    .join();
+        }
+    }
+
+    @Override
+    public String killPort(Computer computer, int port) throws IOException, InterruptedException {
+        Launcher launcher = createLauncher(computer);
+        if (launcher.isUnix()) {
+            ByteArrayOutputStream lsofOut = new ByteArrayOutputStream();
+            launcher.launch()
+                    .cmds("sh", "-c", "lsof -ti:" + port + " | xargs kill -9 2>/dev/null || true")
+                    .stdout(lsofOut)
+                    .stderr(lsofOut)
+                    .join();
+            return lsofOut.toString(StandardCharsets.UTF_8).trim();
+        }
+        launcher.launch()
+                .cmds(
+                        "cmd",
+                        "/c",
+                        "for /f \"tokens=5\" %a in ('netstat -aon ^| findstr :" + port
+                                + "') do taskkill /PID %a /F 2>nul")
+                .stdout(TaskListener.NULL)
+                .join();
+        return null;
+    }
+
+    @Override
+    public long findPid(Computer computer, String jar, String role) throws IOException, InterruptedException {
+        Launcher launcher = createLauncher(computer);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (launcher.isUnix()) {
+            if (!jar.matches("^[\\w\\-./]+$")) {
+                throw new IllegalArgumentException("Invalid jar path: " + jar);
+            }
+            // Use `pgrep` and correctly read stdout (macOS otherwise only returns exit code)
+            int exitCode = launcher.launch()
+                    .cmds("pgrep", "-f", "-n", jar + ".* " + role)
+                    .stdout(out)
+                    .start()
+                    .joinWithTimeout(5000, TimeUnit.MILLISECONDS, TaskListener.NULL);
+            if (exitCode != 0) {
+                return -1;
+            }
+        } else {
+            String escaped = jar.replace("'", "''");
+            String ps = "Get-CimInstance Win32_Process | Where-Object { $_.CommandLine -match [regex]::Escape('"
+                    + escaped + "') -and $_.CommandLine -match ' " + role
+                    + "' } | Select-Object -First 1 -ExpandProperty ProcessId";
+            launcher.launch()
+                    .cmds("powershell.exe", "-NoProfile", "-NonInteractive", "-Command", ps)
+                    .stdout(out)
+                    .join();
+        }
+        String pid = out.toString(StandardCharsets.UTF_8).trim();
+        return pid.matches("\\d+") ? Long.parseLong(pid) : -1;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.Node;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Selenium Hub that the plugin runs on the standby agent. Only the process started in the current controller
+ * session is known here, a standby hub left over from an earlier session is found through its status endpoint.
+ */
+class StandbyHub {
+
+    private SeleniumProcess process;
+    private String agentName;
+
+    synchronized boolean isRunning(String agentName) throws IOException, InterruptedException {
+        return process != null && agentName.equals(this.agentName) && process.isAlive();
+    }
+
+    /**
+     * Copies the server JAR from the controller to the agent and starts the hub in the background.
+     */
+    synchronized void start(Computer computer, int port, String version, File serverJar, Consumer<String> log)
+            throws IOException, InterruptedException {
+        stop();
+        Node node = computer.getNode();
+        FilePath rootPath = node != null ? node.getRootPath() : null;
+        if (rootPath == null || computer.getChannel() == null) {
+            throw new IOException("Agent " + computer.getName() + " is not connected");
+        }
+        FilePath tmp = rootPath.child("selenium-tmp");
+        tmp.mkdirs();
+        // Same name as the node JAR, so both share one copy and the artifact cleanup knows it
+        FilePath jar = tmp.child("selenium-" + version.replaceAll("[^0-9.]", "") + ".jar");
+        if (!jar.exists()) {
+            FilePath part = tmp.child(jar.getName() + ".part");
+            part.copyFrom(new FilePath(serverJar));
+            part.renameTo(jar);
+        }
+
+        List<String> cmd = List.of("java", "-jar", jar.getRemote(), "hub", "--port", Integer.toString(port));
+        FilePath logFile = tmp.child("selenium-standby-hub.log");
+        log.accept("Starting standby hub on " + computer.getName() + ": " + String.join(" ", cmd));
+        process = SeleniumProcessBackend.get(computer).start(computer, cmd, tmp, Map.of(), logFile.write());
+        agentName = computer.getName();
+    }
+
+    synchronized void stop() throws IOException, InterruptedException {
+        if (process != null) {
+            process.kill();
+            process = null;
+            agentName = null;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fleet-wide percentiles of the node start phases, computed over the last successful starts of all agents.
+ */
+public final class StartupTimingStats {
+
+    private static final int MAX_SAMPLES = 500;
+
+    private static final Deque<Map<StartupTimings.Phase, Long>> samples = new ArrayDeque<>();
+
+    private StartupTimingStats() {}
+
+    static synchronized void record(StartupTimings timings) {
+        if (samples.size() >= MAX_SAMPLES) {
+            samples.removeFirst();
+        }
+        samples.addLast(timings.getDurations());
+    }
+
+    public static synchronized int getSampleCount() {
+        return samples.size();
+    }
+
+    /**
+     * One row per phase that occurred in any sample, followed by the total.
+     */
+    public static synchronized List<Row> getRows() {
+        List<Row> rows = new ArrayList<>();
+        for (StartupTimings.Phase phase : StartupTimings.Phase.values()) {
+            long[] values = samples.stream()
+                    .filter(sample -> sample.containsKey(phase))
+                    .mapToLong(sample -> sample.get(phase))
+                    .toArray();
+            if (values.length > 0) {
+                rows.add(new Row(phase.getDisplayName(), values));
+            }
+        }
+        if (!samples.isEmpty()) {
+            long[] totals = samples.stream()
+                    .mapToLong(sample -> sample.values().stream()
+                            .mapToLong(Long::longValue)
+                            .sum())
+                    .toArray();
+            rows.add(new Row(Messages.StartupTimingStats_total(), totals));
+        }
+        return rows;
+    }
+
+    public static final class Row {
+
+        private final String name;
+        private final int count;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long max;
+
+        Row(String name, long[] values) {
+            Arrays.sort(values);
+            this.name = name;
+            this.count = values.length;
+            this.p50 = percentile(values, 50);
+            this.p90 = percentile(values, 90);
+            this.p99 = percentile(values, 99);
+            this.max = values[values.length - 1];
+        }
+
+        /**
+         * Nearest-rank percentile of sorted values.
+         */
+        private static long percentile(long[] sorted, int percent) {
+            int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.jvnet.localizer.Localizable;
+
+/**
+ * Durations of the phases of one node start. Starting a phase ends the previous one, so the phases add up to the
+ * total start time.
+ */
+public class StartupTimings {
+
+    public enum Phase {
+        PREPARE(Messages._StartupTimings_phase_prepare()),
+        PID_KILL(Messages._StartupTimings_phase_pidKill()),
+        PORT_CLEANUP(Messages._StartupTimings_phase_portCleanup()),
+        JAR(Messages._StartupTimings_phase_jar()),
+        DRIVER_CACHE(Messages._StartupTimings_phase_driverCache()),
+        JAVA_CHECK(Messages._StartupTimings_phase_javaCheck()),
+        LAUNCH(Messages._StartupTimings_phase_launch()),
+        BOOT_WAIT(Messages._StartupTimings_phase_bootWait()),
+        LOG_SCRAPE(Messages._StartupTimings_phase_logScrape()),
+        PID_WRITE(Messages._StartupTimings_phase_pidWrite());
+
+        private final Localizable displayName;
+
+        Phase(Localizable displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName.toString();
+        }
+    }
+
+    private final long startedAt = System.currentTimeMillis();
+    private final Map<Phase, Long> durations = new EnumMap<>(Phase.class);
+    private Phase current;
+    private long currentStartedAt;
+    private boolean finished;
+
+    public synchronized void start(Phase phase) {
+        long now = System.currentTimeMillis();
+        endCurrent(now);
+        current = phase;
+        currentStartedAt = now;
+    }
+
+    public synchronized void finish() {
+        endCurrent(System.currentTimeMillis());
+        finished = true;
+    }
+
+    private void endCurrent(long now) {
+        if (current != null) {
+            durations.merge(current, now - currentStartedAt, Long::sum);
+            current = null;
+        }
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * The phase currently running, {@code null} once the start finished.
+     */
+    public synchronized Phase getCurrentPhase() {
+        return current;
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    public synchronized Map<Phase, Long> getDurations() {
+        Map<Phase, Long> copy = new EnumMap<>(Phase.class);
+        copy.putAll(durations);
+        return copy;
+    }
+
+    public long getTotal() {
+        return getDurations().values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public String toString() {
+        return getDurations().entrySet().stream()
+                .map(e -> e.getKey().name().toLowerCase(Locale.ROOT) + "=" + e.getValue() + "ms")
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+
+/**
+ * Periodic work that collects the events of the {@link AgentSupervisor} on each agent every 15 seconds, including
+ * those recorded while the agent was disconnected, and checks whether the processes they are about have exited.
+ * Does nothing unless {@link SupervisorProcessBackend} is enabled.
+ */
+@Extension
+public class SupervisorEventSync extends AsyncPeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(SupervisorEventSync.class.getName());
+
+    private static final long RECURRENCE_PERIOD =
+            SystemProperties.getLong(SupervisorEventSync.class.getName() + ".recurrenceSeconds", 15L) * 1000L;
+
+    public SupervisorEventSync() {
+        super("Selenium Supervisor Event Sync");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return RECURRENCE_PERIOD;
+    }
+
+    @Override
+    protected Level getNormalLoggingLevel() {
+        return Level.FINEST;
+    }
+
+    @Override
+    protected void execute(TaskListener listener) {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (!SupervisorProcessBackend.ENABLED || jenkins == null) {
+            return;
+        }
+        SupervisorProcessBackend backend = SupervisorProcessBackend.get();
+        backend.completeRemovedAgents();
+        for (Computer computer : jenkins.getComputers()) {
+            SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+            if (computer instanceof Jenkins.MasterComputer || action == null || computer.getChannel() == null) {
+                continue;
+            }
+            try {
+                List<String[]> events = SupervisorProcessBackend.readEvents(computer);
+                for (String[] event : events) {
+                    record(computer, action, event[2], event[3], event[4]);
+                }
+                backend.checkExits(computer, events);
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Could not read supervisor events of " + computer.getName(), e);
+            }
+        }
+    }
+
+    private static void record(Computer computer, SeleniumAgentAction action, String name, String type, String msg) {
+        String message = "Supervisor: " + name + " " + msg;
+        switch (type) {
+            case "EXITED":
+                SeleniumEventJournal.record(computer.getName(), SeleniumEvent.Type.NODE_RESTARTED, message);
+                break;
+            case "FAILED":
+                SeleniumEventJournal.record(computer.getName(), SeleniumEvent.Type.NODE_QUARANTINED, message);
+                break;
+            default:
+                action.addNodeRestartLog(message);
+        }
+    }
+}
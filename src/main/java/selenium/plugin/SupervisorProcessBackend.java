@@ -0,0 +1,586 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.remoting.VirtualChannel;
+import hudson.remoting.Which;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.SystemProperties;
+
+/**
+ * Hands processes on an agent to an {@link AgentSupervisor} running there, enabled with
+ * {@code -Dselenium.plugin.SupervisorProcessBackend.enabled=true}. The supervisor restarts a crashed node locally
+ * without waiting for the controller and keeps doing so while the agent is disconnected. Its events are collected
+ * by {@link SupervisorEventSync}, which also completes {@link SeleniumProcess#onExit()} of the processes the events
+ * are about, so exits are noticed without polling every process.
+ * <p>
+ * The controller only writes the desired state of a process and reads back the state the supervisor reports, both
+ * as files in {@code selenium-tmp/supervisor} on the agent. If the supervisor JAR cannot be installed, processes are
+ * started like with {@link RemoteAgentProcessBackend}.
+ */
+@Extension(ordinal = 50)
+public class SupervisorProcessBackend extends RemoteAgentProcessBackend {
+
+    private static final Logger LOGGER = Logger.getLogger(SupervisorProcessBackend.class.getName());
+
+    static final boolean ENABLED =
+            SystemProperties.getBoolean(SupervisorProcessBackend.class.getName() + ".enabled", false);
+
+    private static final long LEASE_TIMEOUT_MILLIS = 10 * AgentSupervisor.POLL_MILLIS;
+    private static final long STOP_TIMEOUT_MILLIS = 30_000;
+    private static final long KILL_TIMEOUT_SECONDS = 10;
+
+    private static volatile File localJar;
+
+    // Processes whose exit someone waits for, checked when SupervisorEventSync reads events about them
+    private final Set<SupervisedProcess> exitWatchers = ConcurrentHashMap.newKeySet();
+
+    static SupervisorProcessBackend get() {
+        return ExtensionList.lookupSingleton(SupervisorProcessBackend.class);
+    }
+
+    @Override
+    public boolean isApplicable(Computer computer) {
+        return ENABLED && super.isApplicable(computer);
+    }
+
+    @Override
+    public SeleniumProcess start(
+            Computer computer, String name, List<String> cmd, FilePath pwd, Map<String, String> env, FilePath log)
+            throws IOException, InterruptedException {
+        FilePath dir = getDirectory(computer);
+        FilePath jar = dir != null ? installJar(dir) : null;
+        if (jar == null) {
+            return super.start(computer, name, cmd, pwd, env, log);
+        }
+        if (log != null) {
+            log.write("", StandardCharsets.UTF_8.name());
+        }
+        Properties spec = new Properties();
+        spec.setProperty("desired", AgentSupervisor.RUNNING);
+        for (int i = 0; i < cmd.size(); i++) {
+            spec.setProperty("cmd." + i, cmd.get(i));
+        }
+        env.forEach((key, value) -> spec.setProperty("env." + key, value));
+        if (pwd != null) {
+            spec.setProperty("pwd", pwd.getRemote());
+        }
+        if (log != null) {
+            spec.setProperty("log", log.getRemote());
+        }
+        long generation = writeSpec(dir, name, spec);
+        ensureSupervisor(computer, dir, jar);
+        return new SupervisedProcess(computer, dir, name, generation, System.currentTimeMillis());
+    }
+
+    @Override
+    public SeleniumProcess attach(Computer computer, String name) throws IOException, InterruptedException {
+        FilePath dir = getDirectory(computer);
+        if (dir == null || !dir.child(name + AgentSupervisor.SPEC_SUFFIX).exists()) {
+            return null;
+        }
+        Properties state = dir.act(new StateProbe(name));
+        if (!isWanted(state)) {
+            return null;
+        }
+        if (!Boolean.parseBoolean(state.getProperty("supervisorAlive"))) {
+            FilePath jar = installJar(dir);
+            if (jar == null) {
+                return null;
+            }
+            ensureSupervisor(computer, dir, jar);
+        }
+        return new SupervisedProcess(computer, dir, name, generationOf(state), -1);
+    }
+
+    @Override
+    public void kill(Computer computer, long pid) throws IOException, InterruptedException {
+        FilePath dir = getDirectory(computer);
+        if (dir != null && pid > 1 && dir.exists() && !stopPrograms(dir, pid).isEmpty()) {
+            return;
+        }
+        super.kill(computer, pid);
+    }
+
+    /**
+     * Checks the port on the agent itself instead of forking {@code lsof} or {@code netstat}. Only if it is held
+     * by a process the supervisor does not know, that process is looked up like with {@link RemoteAgentProcessBackend}.
+     */
+    @Override
+    public String killPort(Computer computer, int port) throws IOException, InterruptedException {
+        FilePath dir = getDirectory(computer);
+        if (dir == null) {
+            return super.killPort(computer, port);
+        }
+        if (dir.act(new PortProbe(port))) {
+            return "";
+        }
+        List<String> killed = dir.exists() ? stopPrograms(dir, -1) : List.of();
+        if (!killed.isEmpty() && dir.act(new PortProbe(port))) {
+            return String.join(" ", killed);
+        }
+        return super.killPort(computer, port);
+    }
+
+    /**
+     * Stops supervised programs and kills their processes after checking their identity on the agent. The spec is
+     * written first, so the supervisor does not restart what is killed.
+     *
+     * @param pid only stop the program running as this PID, {@code -1} for all programs
+     * @return the killed PIDs
+     */
+    private static List<String> stopPrograms(FilePath dir, long pid) throws IOException, InterruptedException {
+        List<String> killed = new ArrayList<>();
+        for (FilePath stateFile : dir.list("*" + AgentSupervisor.STATE_SUFFIX)) {
+            String name = stateFile.getName();
+            name = name.substring(0, name.length() - AgentSupervisor.STATE_SUFFIX.length());
+            Properties state = dir.act(new StateProbe(name));
+            if (!Boolean.parseBoolean(state.getProperty("processAlive"))
+                    || (pid > 0 && !Long.toString(pid).equals(state.getProperty("pid")))) {
+                continue;
+            }
+            stop(dir, name);
+            String killedPid = dir.act(new ProcessKiller(name));
+            if (killedPid != null) {
+                killed.add(killedPid);
+            }
+        }
+        return killed;
+    }
+
+    @Override
+    public long findPid(Computer computer, String jar, String role) throws IOException, InterruptedException {
+        FilePath dir = getDirectory(computer);
+        if (dir != null && dir.child(role + AgentSupervisor.STATE_SUFFIX).exists()) {
+            Properties state = dir.act(new StateProbe(role));
+            if (Boolean.parseBoolean(state.getProperty("processAlive"))) {
+                return Long.parseLong(state.getProperty("pid"));
+            }
+        }
+        return super.findPid(computer, jar, role);
+    }
+
+    static FilePath getDirectory(Computer computer) {
+        Node node = computer.getNode();
+        FilePath rootPath = node != null ? node.getRootPath() : null;
+        return rootPath != null ? rootPath.child("selenium-tmp").child("supervisor") : null;
+    }
+
+    /**
+     * Reads the events the supervisor on an agent recorded since the last call.
+     *
+     * @return lines of sequence number, timestamp, program, type and message
+     */
+    static List<String[]> readEvents(Computer computer) throws IOException, InterruptedException {
+        FilePath dir = getDirectory(computer);
+        if (dir == null || !dir.child(AgentSupervisor.EVENTS_FILE).exists()) {
+            return List.of();
+        }
+        return dir.act(new EventReader());
+    }
+
+    /**
+     * Completes the exit of the processes on an agent that the events are about. Processes never checked yet and,
+     * if the supervisor stopped writing its lease, all processes on the agent are checked as well, since no events
+     * come from a dead supervisor.
+     */
+    void checkExits(Computer computer, List<String[]> events) throws IOException, InterruptedException {
+        Set<String> named = new HashSet<>();
+        for (String[] event : events) {
+            named.add(event[2]);
+        }
+        Boolean supervisorAlive = null;
+        for (SupervisedProcess process : exitWatchers) {
+            if (!process.computer.getName().equals(computer.getName())) {
+                continue;
+            }
+            if (!process.checked || named.contains(process.name)) {
+                process.checkExit();
+                continue;
+            }
+            if (supervisorAlive == null) {
+                supervisorAlive = Boolean.parseBoolean(
+                        process.dir.act(new StateProbe(null)).getProperty("supervisorAlive"));
+            }
+            if (!supervisorAlive) {
+                process.checkExit();
+            }
+        }
+    }
+
+    /**
+     * Completes the exit of processes on agents that were removed, nobody reads their events anymore.
+     */
+    void completeRemovedAgents() {
+        for (SupervisedProcess process : exitWatchers) {
+            if (process.computer.getNode() == null) {
+                process.exit.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Copies the supervisor classes, which are part of the plugin JAR, to the agent.
+     *
+     * @return the JAR on the agent, {@code null} if the plugin is not loaded from a JAR
+     */
+    private static FilePath installJar(FilePath dir) throws IOException, InterruptedException {
+        File jar = localJar;
+        if (jar == null) {
+            try {
+                jar = Which.jarFile(AgentSupervisor.class);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.FINE, "Could not locate the supervisor classes", e);
+                return null;
+            }
+            if (!jar.isFile()) {
+                LOGGER.log(
+                        Level.WARNING, "Supervisor classes are not in a JAR ({0}), starting processes directly", jar);
+                return null;
+            }
+            localJar = jar;
+        }
+        FilePath target = dir.child("selenium-supervisor-" + Util.getDigestOf(jar).substring(0, 12) + ".jar");
+        if (!target.exists()) {
+            dir.mkdirs();
+            FilePath part = dir.child(target.getName() + ".part");
+            part.copyFrom(new FilePath(jar));
+            part.renameTo(target);
+        }
+        return target;
+    }
+
+    private void ensureSupervisor(Computer computer, FilePath dir, FilePath jar)
+            throws IOException, InterruptedException {
+        if (Boolean.parseBoolean(dir.act(new StateProbe(null)).getProperty("supervisorAlive"))) {
+            return;
+        }
+        LOGGER.log(Level.INFO, "Starting Selenium supervisor on {0}", computer.getName());
+        // A second supervisor started by a concurrent call exits right away, it cannot get the lock
+        super.start(
+                computer,
+                List.of("java", "-cp", jar.getRemote(), AgentSupervisor.class.getName(), dir.getRemote()),
+                dir,
+                Map.of(),
+                OutputStream.nullOutputStream());
+    }
+
+    private static long writeSpec(FilePath dir, String name, Properties spec)
+            throws IOException, InterruptedException {
+        dir.mkdirs();
+        FilePath specFile = dir.child(name + AgentSupervisor.SPEC_SUFFIX);
+        long generation = System.currentTimeMillis();
+        if (specFile.exists()) {
+            Properties old = new Properties();
+            try (var in = specFile.read()) {
+                old.load(in);
+            }
+            generation = Math.max(generation, generationOf(old) + 1);
+        }
+        spec.setProperty("generation", Long.toString(generation));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        spec.store(out, "Written by the Selenium plugin, read by " + AgentSupervisor.class.getSimpleName());
+        FilePath tmp = dir.child(specFile.getName() + ".tmp");
+        try (OutputStream os = tmp.write()) {
+            os.write(out.toByteArray());
+        }
+        tmp.renameTo(specFile);
+        return generation;
+    }
+
+    private static long stop(FilePath dir, String name) throws IOException, InterruptedException {
+        Properties spec = new Properties();
+        spec.setProperty("desired", AgentSupervisor.STOPPED);
+        return writeSpec(dir, name, spec);
+    }
+
+    private static boolean isWanted(Properties state) {
+        String status = state.getProperty("status");
+        return AgentSupervisor.RUNNING.equals(status) || AgentSupervisor.RESTARTING.equals(status);
+    }
+
+    private static long generationOf(Properties properties) {
+        try {
+            return Long.parseLong(properties.getProperty("generation", "-1"));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class SupervisedProcess implements SeleniumProcess {
+
+        private final Computer computer;
+        private final FilePath dir;
+        private final String name;
+        private final long generation;
+        private final long startTime;
+        private volatile long pid = -1;
+        private volatile Properties lastState = new Properties();
+        private volatile boolean checked;
+        private CompletableFuture<Integer> exit;
+
+        SupervisedProcess(Computer computer, FilePath dir, String name, long generation, long startTime) {
+            this.computer = computer;
+            this.dir = dir;
+            this.name = name;
+            this.generation = generation;
+            this.startTime = startTime;
+        }
+
+        @Override
+        public long getPid() {
+            return pid;
+        }
+
+        @Override
+        public long getStartTime() {
+            return startTime;
+        }
+
+        private Properties probe() throws IOException, InterruptedException {
+            Properties state = dir.act(new StateProbe(name));
+            if (generationOf(state) == generation) {
+                pid = Long.parseLong(state.getProperty("pid", "-1"));
+            }
+            lastState = state;
+            return state;
+        }
+
+        @Override
+        public boolean isAlive() throws IOException, InterruptedException {
+            Properties state = probe();
+            long stateGeneration = generationOf(state);
+            if (stateGeneration > generation) {
+                // Replaced by a newer start or stopped
+                return false;
+            }
+            boolean supervisorAlive = Boolean.parseBoolean(state.getProperty("supervisorAlive"));
+            if (!supervisorAlive) {
+                FilePath jar = installJar(dir);
+                if (jar != null) {
+                    ensureSupervisor(computer, dir, jar);
+                }
+                return Boolean.parseBoolean(state.getProperty("processAlive"));
+            }
+            // Not picked up by the supervisor yet
+            return stateGeneration < generation || isWanted(state);
+        }
+
+        @Override
+        public void kill() throws IOException, InterruptedException {
+            Properties state = probe();
+            if (generationOf(state) > generation) {
+                return;
+            }
+            long stopGeneration = stop(dir, name);
+            long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+            while (Boolean.parseBoolean(state.getProperty("supervisorAlive"))
+                    && generationOf(state) < stopGeneration
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(AgentSupervisor.POLL_MILLIS);
+                state = dir.act(new StateProbe(name));
+            }
+            if (Boolean.parseBoolean(state.getProperty("processAlive"))) {
+                dir.act(new ProcessKiller(name));
+            }
+        }
+
+        @Override
+        public synchronized CompletableFuture<Integer> onExit() {
+            if (exit == null) {
+                exit = new CompletableFuture<>();
+                exitWatchers.add(this);
+                exit.whenComplete((code, e) -> exitWatchers.remove(this));
+            }
+            return exit;
+        }
+
+        private void checkExit() throws IOException, InterruptedException {
+            checked = true;
+            if (!isAlive()) {
+                String code = lastState.getProperty("exitCode");
+                exit.complete(code != null ? Integer.valueOf(code) : null);
+            }
+        }
+    }
+
+    /**
+     * Reads the state of a program and whether the supervisor holds its lease, using the clock of the agent.
+     */
+    private static final class StateProbe extends MasterToSlaveFileCallable<Properties> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        StateProbe(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Properties invoke(File dir, VirtualChannel channel) {
+            Properties state = new Properties();
+            if (name != null) {
+                Properties stored = AgentSupervisor.load(dir.toPath().resolve(name + AgentSupervisor.STATE_SUFFIX));
+                if (stored != null) {
+                    state.putAll(stored);
+                }
+            }
+            Properties lease = AgentSupervisor.load(dir.toPath().resolve(AgentSupervisor.LEASE_FILE));
+            long heartbeat = lease != null ? Long.parseLong(lease.getProperty("heartbeat", "0")) : 0;
+            state.setProperty(
+                    "supervisorAlive",
+                    Boolean.toString(System.currentTimeMillis() - heartbeat < LEASE_TIMEOUT_MILLIS));
+            state.setProperty(
+                    "processAlive",
+                    Boolean.toString(AgentSupervisor.findProcess(state).isPresent()));
+            return state;
+        }
+    }
+
+    /**
+     * Kills the process of a program if it is still the one the supervisor started.
+     */
+    private static final class ProcessKiller extends MasterToSlaveFileCallable<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        ProcessKiller(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String invoke(File dir, VirtualChannel channel) throws InterruptedException {
+            Properties state = AgentSupervisor.load(dir.toPath().resolve(name + AgentSupervisor.STATE_SUFFIX));
+            ProcessHandle process = state != null ? AgentSupervisor.findProcess(state).orElse(null) : null;
+            if (process == null) {
+                return null;
+            }
+            process.destroy();
+            try {
+                process.onExit().get(KILL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                process.destroyForcibly();
+            }
+            return Long.toString(process.pid());
+        }
+    }
+
+    /**
+     * Tells whether a port on the agent is free by binding it.
+     */
+    private static final class PortProbe extends MasterToSlaveFileCallable<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int port;
+
+        PortProbe(int port) {
+            this.port = port;
+        }
+
+        @Override
+        public Boolean invoke(File dir, VirtualChannel channel) {
+            try (ServerSocket socket = new ServerSocket()) {
+                socket.setReuseAddress(true);
+                socket.bind(new InetSocketAddress(port));
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Returns the events with a higher sequence number than the last acknowledged one and acknowledges them, so a
+     * controller restart does not report them again.
+     */
+    private static final class EventReader extends MasterToSlaveFileCallable<List<String[]>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final String ACK_FILE = "events.ack";
+
+        @Override
+        public List<String[]> invoke(File dir, VirtualChannel channel) throws IOException {
+            Path ackFile = dir.toPath().resolve(ACK_FILE);
+            long acknowledged = 0;
+            if (Files.exists(ackFile)) {
+                String ack = Files.readString(ackFile, StandardCharsets.UTF_8).trim();
+                acknowledged = ack.matches("\\d+") ? Long.parseLong(ack) : 0;
+            }
+            List<String[]> all = new ArrayList<>();
+            long newest = 0;
+            for (String file : List.of(AgentSupervisor.EVENTS_FILE + ".1", AgentSupervisor.EVENTS_FILE)) {
+                Path path = dir.toPath().resolve(file);
+                if (!Files.exists(path)) {
+                    continue;
+                }
+                for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                    String[] event = AgentSupervisor.parseEvent(line);
+                    if (event != null) {
+                        all.add(event);
+                        newest = Math.max(newest, Long.parseLong(event[0]));
+                    }
+                }
+            }
+            if (newest < acknowledged) {
+                // The event files were removed, e.g. with selenium-tmp, and the supervisor started counting again
+                acknowledged = 0;
+            }
+            List<String[]> events = new ArrayList<>();
+            for (String[] event : all) {
+                if (Long.parseLong(event[0]) > acknowledged) {
+                    events.add(event);
+                }
+            }
+            if (newest != acknowledged) {
+                Files.writeString(ackFile, Long.toString(newest), StandardCharsets.UTF_8);
+            }
+            return events;
+        }
+    }
+}
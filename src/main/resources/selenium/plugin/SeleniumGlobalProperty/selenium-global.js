@@ -21,6 +21,11 @@
         toggleInputs.forEach(function(input) {
             input.addEventListener('change', function() {
                 var form = this.closest('form');
+                if (form && form.classList.contains('selenium-toggle-form') && form.dataset.ready !== 'true') {
+                    // Status not loaded yet, the form does not know whether to start or stop
+                    this.checked = !this.checked;
+                    return;
+                }
                 if (form) {
                     form.submit();
                 } else if (this.form) {
@@ -43,9 +48,252 @@
         });
     }
 
+    function applyAgentStatus(table, agent) {
+        var row = table.querySelector('tr[data-agent-name="' + CSS.escape(agent.name) + '"]');
+        if (!row) {
+            return;
+        }
+        var form = row.querySelector('form');
+        var input = row.querySelector('.selenium-toggle-input');
+        var status = row.querySelector('.selenium-agent-status');
+        var quarantine = row.querySelector('.selenium-agent-quarantine');
+        var disk = row.querySelector('.selenium-agent-disk');
+
+        // Until the first check after a controller restart it is not known whether a node is running
+        var unknown = agent.state === 'UNKNOWN';
+        if (form) {
+            form.setAttribute('action', agent.running ? 'stopSeleniumNode' : 'startSeleniumNode');
+            form.dataset.ready = unknown ? 'false' : 'true';
+        }
+        if (input) {
+            input.checked = agent.running;
+        }
+        if (status) {
+            if (unknown) {
+                status.textContent = table.dataset.labelUnknown;
+                status.className = 'selenium-agent-status';
+            } else if (agent.state === 'DRAINING') {
+                status.textContent = table.dataset.labelDraining;
+                status.className = 'selenium-agent-status jenkins-!-color-orange';
+            } else {
+                status.textContent = agent.running ? table.dataset.labelActive : table.dataset.labelInactive;
+                status.className = 'selenium-agent-status ' + (agent.running ? 'jenkins-!-color-green' : 'jenkins-!-color-red');
+            }
+        }
+        if (quarantine) {
+            quarantine.textContent = agent.quarantined ? table.dataset.labelQuarantined : '';
+            quarantine.title = agent.quarantineReason || '';
+        }
+        if (disk) {
+            disk.textContent = agent.diskUsage || '-';
+        }
+    }
+
+    function loadAgentStatus(table, start) {
+        var pageSize = 100;
+        var url = table.dataset.statusUrl + '?start=' + start + '&limit=' + pageSize;
+        fetch(url, { credentials: 'same-origin' })
+            .then(function(response) {
+                return response.ok ? response.json() : Promise.reject(response.status);
+            })
+            .then(function(result) {
+                var data = result.data || result;
+                data.agents.forEach(function(agent) {
+                    applyAgentStatus(table, agent);
+                });
+                if (data.start + data.agents.length < data.total) {
+                    loadAgentStatus(table, data.start + data.agents.length);
+                }
+            })
+            .catch(function(error) {
+                console.warn('Could not load Selenium agent status', error);
+            });
+    }
+
+    function initAgentStatus() {
+        var table = document.getElementById('selenium-agents-table');
+        if (table && table.dataset.statusUrl) {
+            loadAgentStatus(table, 0);
+        }
+    }
+
+    function showBulkProgress(output, job) {
+        var lines = [job.operation + ' ' + job.id + (job.done ? ' (done)' : ' (running)')];
+        job.agents.forEach(function(agent) {
+            lines.push(agent.name + ': ' + agent.status + (agent.message ? ' - ' + agent.message : ''));
+        });
+        output.textContent = lines.join('\n');
+    }
+
+    function pollBulkOperation(baseUrl, output, id) {
+        fetch(baseUrl + 'bulkNodeOperationStatus?id=' + encodeURIComponent(id), { credentials: 'same-origin' })
+            .then(function(response) {
+                return response.json();
+            })
+            .then(function(result) {
+                if (result.status !== 'ok') {
+                    output.textContent = result.message;
+                    return;
+                }
+                showBulkProgress(output, result.data);
+                if (!result.data.done) {
+                    setTimeout(function() {
+                        pollBulkOperation(baseUrl, output, id);
+                    }, 2000);
+                }
+            });
+    }
+
+    function initBulkOperations() {
+        var form = document.getElementById('selenium-bulk-form');
+        var output = document.getElementById('selenium-bulk-progress');
+        if (!form || !output) {
+            return;
+        }
+        form.addEventListener('submit', function(e) {
+            e.preventDefault();
+            var body = new URLSearchParams();
+            body.append('operation', e.submitter ? e.submitter.value : 'start');
+            body.append('label', form.elements.label.value);
+            body.append('agents', form.elements.agents.value);
+
+            var headers = { 'Content-Type': 'application/x-www-form-urlencoded' };
+            var crumbHeader = document.head.dataset.crumbHeader;
+            if (crumbHeader) {
+                headers[crumbHeader] = document.head.dataset.crumbValue;
+            }
+
+            output.style.display = 'block';
+            fetch(form.dataset.url + 'bulkNodeOperation', {
+                method: 'POST',
+                credentials: 'same-origin',
+                headers: headers,
+                body: body
+            })
+                .then(function(response) {
+                    return response.json();
+                })
+                .then(function(result) {
+                    if (result.status !== 'ok') {
+                        output.textContent = result.message;
+                        return;
+                    }
+                    showBulkProgress(output, result.data);
+                    pollBulkOperation(form.dataset.url, output, result.data.id);
+                });
+        });
+    }
+
+    function renderSeries(title, values, format) {
+        var svgNs = 'http://www.w3.org/2000/svg';
+        var width = 300;
+        var height = 60;
+        var known = values.filter(function(v) {
+            return v >= 0;
+        });
+        var max = Math.max.apply(null, known.concat([1]));
+
+        var card = document.createElement('div');
+        card.className = 'selenium-metrics-chart';
+        card.style.cssText =
+            'flex:1 1 300px; border:1px solid var(--line-color, #ddd); border-radius:4px; padding:8px;';
+        var heading = document.createElement('div');
+        var latest = known.length ? format(known[known.length - 1]) : '-';
+        heading.textContent = title + ': ' + latest + ' (max ' + format(max) + ')';
+        card.appendChild(heading);
+
+        var svg = document.createElementNS(svgNs, 'svg');
+        svg.setAttribute('viewBox', '0 0 ' + width + ' ' + height);
+        svg.setAttribute('preserveAspectRatio', 'none');
+        svg.style.cssText = 'width:100%; height:60px;';
+        var points = [];
+        values.forEach(function(v, i) {
+            if (v >= 0) {
+                var x = values.length > 1 ? i * width / (values.length - 1) : width;
+                points.push(x.toFixed(1) + ',' + (height - v * (height - 2) / max - 1).toFixed(1));
+            }
+        });
+        var line = document.createElementNS(svgNs, 'polyline');
+        line.setAttribute('points', points.join(' '));
+        line.setAttribute('fill', 'none');
+        line.setAttribute('stroke', 'var(--accent-color, #1d7bd7)');
+        line.setAttribute('stroke-width', '1.5');
+        line.setAttribute('vector-effect', 'non-scaling-stroke');
+        svg.appendChild(line);
+        card.appendChild(svg);
+        return card;
+    }
+
+    function formatDuration(millis) {
+        return millis >= 60000 ? Math.round(millis / 60000) + ' min' : Math.round(millis / 1000) + ' s';
+    }
+
+    function loadHubMetrics(container) {
+        var range = container.querySelector('select');
+        var url = container.dataset.url + '?minutes=' + (range ? range.value : 60);
+        fetch(url, { credentials: 'same-origin' })
+            .then(function(response) {
+                return response.ok ? response.json() : Promise.reject(response.status);
+            })
+            .then(function(result) {
+                var data = result.data;
+                var charts = container.querySelector('.selenium-metrics-charts');
+                var nodes = container.querySelector('.selenium-metrics-nodes tbody');
+                charts.textContent = '';
+                nodes.textContent = '';
+                if (!data.time.length) {
+                    charts.textContent = container.dataset.labelEmpty;
+                    return;
+                }
+                var plain = function(v) {
+                    return String(v);
+                };
+                var percent = function(v) {
+                    return v + ' %';
+                };
+                charts.appendChild(renderSeries(container.dataset.labelStarted, data.sessionsStarted, plain));
+                charts.appendChild(renderSeries(container.dataset.labelQueue, data.queueSize, plain));
+                charts.appendChild(renderSeries(container.dataset.labelWait, data.estimatedWaitMillis, formatDuration));
+                charts.appendChild(renderSeries(container.dataset.labelUtilization, data.utilization, percent));
+                data.nodes.forEach(function(node) {
+                    var row = document.createElement('tr');
+                    [node.uri, node.current + ' %', node.average + ' %'].forEach(function(text) {
+                        var cell = document.createElement('td');
+                        cell.textContent = text;
+                        row.appendChild(cell);
+                    });
+                    nodes.appendChild(row);
+                });
+            })
+            .catch(function() {
+                container.querySelector('.selenium-metrics-charts').textContent = container.dataset.labelEmpty;
+            });
+    }
+
+    function initHubMetrics() {
+        var container = document.getElementById('selenium-hub-metrics');
+        if (!container) {
+            return;
+        }
+        var range = container.querySelector('select');
+        if (range) {
+            range.addEventListener('change', function() {
+                loadHubMetrics(container);
+            });
+        }
+        loadHubMetrics(container);
+        // New samples arrive once a minute
+        setInterval(function() {
+            loadHubMetrics(container);
+        }, 60000);
+    }
+
     function init() {
         initToggleSwitches();
         initSlotsToggle();
+        initAgentStatus();
+        initBulkOperations();
+        initHubMetrics();
     }
 
     if (document.readyState === 'loading') {
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import com.sun.net.httpserver.HttpServer;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.FilePath;
+import hudson.model.Computer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * In-process stand-in for hub and node processes, used by tests that set {@link #enabled}. Instead of starting
+ * Java it serves a ready {@code /status} from the controller JVM, so hub and node lifecycles can be tested without
+ * Selenium. The hub listens on its requested port; agents share the controller host, so each of their processes
+ * listens on a free port of its own, which {@link #getListenPort} reports.
+ */
+@Extension(ordinal = 100)
+public class FakeProcessBackend extends SeleniumProcessBackend {
+
+    static volatile boolean enabled;
+
+    private static final int DEFAULT_PORT = 4444;
+
+    private final Map<String, FakeProcess> processes = new ConcurrentHashMap<>();
+
+    static FakeProcessBackend get() {
+        return ExtensionList.lookupSingleton(FakeProcessBackend.class);
+    }
+
+    @Override
+    public boolean isApplicable(Computer computer) {
+        return enabled;
+    }
+
+    @Override
+    public SeleniumProcess start(
+            Computer computer, List<String> cmd, FilePath pwd, Map<String, String> env, OutputStream output)
+            throws IOException {
+        int portIndex = cmd.indexOf("--port");
+        int port = portIndex >= 0 && portIndex + 1 < cmd.size()
+                ? Integer.parseInt(cmd.get(portIndex + 1))
+                : DEFAULT_PORT;
+        String role = cmd.contains("hub") ? "hub" : "node";
+
+        String key = key(computer, port);
+        FakeProcess process = new FakeProcess(key, computer == null ? port : 0, role, cmd);
+        processes.put(key, process);
+        output.write(("Fake Selenium " + role + " listening on port " + process.getPort() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        output.flush();
+        return process;
+    }
+
+    private static String key(Computer computer, int port) {
+        return (computer != null ? computer.getName() : "(controller)") + ":" + port;
+    }
+
+    /**
+     * @return the running fake process started with a port, {@code null} if there is none
+     */
+    FakeProcess getProcess(Computer computer, int port) {
+        return processes.get(key(computer, port));
+    }
+
+    @Override
+    public int getListenPort(Computer computer, int port) {
+        FakeProcess process = getProcess(computer, port);
+        return process != null ? process.getPort() : port;
+    }
+
+    @Override
+    public int run(Computer computer, List<String> cmd, OutputStream output) throws IOException {
+        output.write(("fake: " + String.join(" ", cmd) + "\n").getBytes(StandardCharsets.UTF_8));
+        return 0;
+    }
+
+    @Override
+    public void kill(Computer computer, long pid) {
+        // Fake processes have no PID, so there is nothing a PID file could point to
+    }
+
+    @Override
+    public String killPort(Computer computer, int port) {
+        FakeProcess process = getProcess(computer, port);
+        if (process == null) {
+            return "";
+        }
+        process.kill();
+        return "fake " + process.role;
+    }
+
+    @Override
+    public long findPid(Computer computer, String jar, String role) {
+        return -1;
+    }
+
+    final class FakeProcess implements SeleniumProcess {
+
+        private final long startTime = System.currentTimeMillis();
+        private final String key;
+        private final String role;
+        private final List<String> command;
+        private final HttpServer server;
+        private final CompletableFuture<Integer> exit = new CompletableFuture<>();
+
+        FakeProcess(String key, int port, String role, List<String> command) throws IOException {
+            this.key = key;
+            this.role = role;
+            this.command = List.copyOf(command);
+            server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+            server.createContext("/status", exchange -> {
+                byte[] body = status().toString().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+        }
+
+        int getPort() {
+            return server.getAddress().getPort();
+        }
+
+        /**
+         * @return the hub a node was started for, {@code null} for a hub
+         */
+        String getHubUrl() {
+            int index = command.indexOf("--hub");
+            return index >= 0 && index + 1 < command.size() ? command.get(index + 1) : null;
+        }
+
+        private JSONObject status() {
+            JSONObject value = new JSONObject();
+            value.put("ready", true);
+            value.put("message", "Fake Selenium " + role + " ready");
+            if ("hub".equals(role)) {
+                value.put("nodes", new JSONArray());
+            }
+            JSONObject status = new JSONObject();
+            status.put("value", value);
+            return status;
+        }
+
+        @Override
+        public long getPid() {
+            // Never a real PID, so no PID file can make a later session kill an unrelated process
+            return -1;
+        }
+
+        @Override
+        public long getStartTime() {
+            return startTime;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return !exit.isDone();
+        }
+
+        @Override
+        public void kill() {
+            if (exit.complete(0)) {
+                server.stop(0);
+                processes.remove(key, this);
+            }
+        }
+
+        @Override
+        public CompletableFuture<Integer> onExit() {
+            return exit;
+        }
+    }
+}
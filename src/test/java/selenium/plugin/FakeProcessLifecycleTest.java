@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.ManagementLink;
+import hudson.slaves.DumbSlave;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Starts, stops and restarts hub and nodes through {@link FakeProcessBackend}.
+ */
+@WithJenkins
+class FakeProcessLifecycleTest {
+
+    private static final String VERSION = "4.33.0";
+    private static final int HUB_PORT = 4444;
+    private static final int NODE_PORT = 5555;
+
+    private JenkinsRule j;
+    private SeleniumGlobalProperty globalProp;
+    private FakeProcessBackend backend;
+
+    @BeforeEach
+    void setUp(JenkinsRule j) throws Exception {
+        this.j = j;
+        globalProp = ManagementLink.all().get(SeleniumGlobalProperty.class);
+        assumeFalse(HubFailover.isReachable(globalProp.getPrimaryHubUrl()), "Port 4444 is in use");
+        FakeProcessBackend.enabled = true;
+        backend = FakeProcessBackend.get();
+        globalProp.setSeleniumVersion(VERSION);
+        writeJar(new File(j.jenkins.getRootDir(), "selenium-hub-" + VERSION + ".jar"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (globalProp.getHubActive()) {
+            globalProp.doStopHub();
+        }
+        FakeProcessBackend.enabled = false;
+    }
+
+    @Test
+    void hubStartsRestartsAfterCrashAndStops() throws Exception {
+        globalProp.doStartHub();
+        assertTrue(globalProp.getHubActive());
+        assertTrue(globalProp.isHubReachable());
+
+        FakeProcessBackend.FakeProcess crashed = backend.getProcess(null, HUB_PORT);
+        crashed.kill();
+        // The hub supervisor restarts a crashed hub right away the first time
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!globalProp.isHubReachable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(globalProp.isHubReachable());
+        assertNotSame(crashed, backend.getProcess(null, HUB_PORT));
+
+        globalProp.doStopHub();
+        assertFalse(globalProp.getHubActive());
+        assertFalse(globalProp.isHubReachable());
+        assertNull(backend.getProcess(null, HUB_PORT));
+    }
+
+    @Test
+    void nodesOfTwoAgentsStartRestartAndStop() throws Exception {
+        globalProp.doStartHub();
+        DumbSlave first = j.createOnlineSlave();
+        DumbSlave second = j.createOnlineSlave();
+        SeleniumAgentAction firstAction = prepareAgent(first.toComputer());
+        SeleniumAgentAction secondAction = prepareAgent(second.toComputer());
+
+        firstAction.startNodeInternal();
+        secondAction.startNodeInternal();
+        assertTrue(firstAction.getNodeActive());
+        assertTrue(secondAction.getNodeActive());
+        // Both agents run on this host, so each node got a port of its own
+        assertNotEquals(
+                backend.getListenPort(first.toComputer(), NODE_PORT),
+                backend.getListenPort(second.toComputer(), NODE_PORT));
+        assertTrue(NodeProcessProbe.isNodeReady(backend.getListenPort(first.toComputer(), NODE_PORT)));
+
+        FakeProcessBackend.FakeProcess previous = backend.getProcess(first.toComputer(), NODE_PORT);
+        firstAction.restartForHubChange(globalProp.getHubUrl());
+        FakeProcessBackend.FakeProcess restarted = backend.getProcess(first.toComputer(), NODE_PORT);
+        assertNotNull(restarted);
+        assertNotSame(previous, restarted);
+        assertFalse(previous.isAlive());
+        assertTrue(firstAction.getNodeActive());
+        assertTrue(secondAction.getNodeActive());
+
+        firstAction.stopNode();
+        secondAction.stopNode();
+        assertFalse(firstAction.getNodeActive());
+        assertFalse(secondAction.getNodeActive());
+        assertNull(backend.getProcess(first.toComputer(), NODE_PORT));
+        assertNull(backend.getProcess(second.toComputer(), NODE_PORT));
+    }
+
+    /**
+     * Puts the server JAR where the node start looks for it, so nothing is downloaded.
+     */
+    private static SeleniumAgentAction prepareAgent(Computer computer) throws Exception {
+        FilePath tmp = computer.getNode().getRootPath().child("selenium-tmp");
+        tmp.mkdirs();
+        writeJar(new File(tmp.child("selenium-" + VERSION + ".jar").getRemote()));
+        SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+        assertNotNull(action);
+        return action;
+    }
+
+    /**
+     * Writes a JAR without Selenium Manager, so the driver cache warmup returns right away.
+     */
+    private static void writeJar(File jar) throws Exception {
+        try (OutputStream out = Files.newOutputStream(jar.toPath());
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            zip.closeEntry();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2025 it.x informationssysteme gmbh
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package selenium.plugin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import com.sun.net.httpserver.HttpServer;
+import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.ManagementLink;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+/**
+ * Switches between the controller hub and a standby hub, both played by local HTTP servers answering
+ * {@code /status}. Nodes are played by {@link FakeProcessBackend}.
+ */
+@WithJenkins
+class HubFailoverTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final String VERSION = "4.33.0";
+    private static final int NODE_PORT = 5555;
+
+    private final List<HttpServer> hubs = new ArrayList<>();
+
+    private JenkinsRule j;
+    private SeleniumGlobalProperty globalProp;
+    private HubFailover failover;
+
+    @BeforeEach
+    void setUp(JenkinsRule j) {
+        this.j = j;
+        globalProp = ManagementLink.all().get(SeleniumGlobalProperty.class);
+        failover = globalProp.getHubFailover();
+        assumeFalse(HubFailover.isReachable(globalProp.getPrimaryHubUrl()), "Port 4444 is in use");
+        globalProp.setHubActive(true);
+    }
+
+    @AfterEach
+    void stopHubs() {
+        hubs.forEach(hub -> hub.stop(0));
+        globalProp.setHubActive(false);
+        FakeProcessBackend.enabled = false;
+    }
+
+    @Test
+    void failsOverAndBackWhenStandbyHubFails() throws Exception {
+        HttpServer standby = startHub(0);
+        String standbyUrl = urlOf(standby);
+        globalProp.setStandbyHubUrl(standbyUrl);
+
+        failOver();
+        assertEquals(standbyUrl, globalProp.getHubUrl());
+
+        // The controller hub is back, but the nodes stay on the standby hub while it works
+        startHub(4444);
+        failover.check();
+        assertTrue(globalProp.isStandbyHubActive());
+
+        standby.stop(0);
+        failover.check();
+        assertFalse(globalProp.isStandbyHubActive());
+        assertEquals(globalProp.getPrimaryHubUrl(), globalProp.getHubUrl());
+    }
+
+    @Test
+    void failsBackWhenStandbyHubIsRemoved() throws Exception {
+        globalProp.setStandbyHubUrl(urlOf(startHub(0)));
+        failOver();
+
+        globalProp.setStandbyHubUrl(null);
+        failover.check();
+        assertFalse(globalProp.isStandbyHubSelected());
+        assertEquals(globalProp.getPrimaryHubUrl(), globalProp.getHubUrl());
+    }
+
+    @Test
+    void failsBackWhenStandbyHubIsReplaced() throws Exception {
+        globalProp.setStandbyHubUrl(urlOf(startHub(0)));
+        failOver();
+
+        String otherUrl = urlOf(startHub(0));
+        globalProp.setStandbyHubUrl(otherUrl);
+        assertFalse(globalProp.isStandbyHubActive());
+        assertEquals(globalProp.getPrimaryHubUrl(), globalProp.getHubUrl());
+    }
+
+    @Test
+    void restartsNodesOfSeveralAgentsOnFailover() throws Exception {
+        FakeProcessBackend.enabled = true;
+        FakeProcessBackend backend = FakeProcessBackend.get();
+        globalProp.setSeleniumVersion(VERSION);
+        List<Computer> agents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Computer computer = j.createOnlineSlave().toComputer();
+            SeleniumAgentAction action = prepareAgent(computer);
+            action.startNodeInternal();
+            assertTrue(action.getNodeActive());
+            agents.add(computer);
+        }
+
+        String standbyUrl = urlOf(startHub(0));
+        globalProp.setStandbyHubUrl(standbyUrl);
+        failOver();
+
+        // The restarts run in the background, the check that triggered them has already returned
+        long deadline = System.currentTimeMillis() + 60_000;
+        for (Computer computer : agents) {
+            while (!isNodeOnHub(backend, computer, standbyUrl) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            assertTrue(isNodeOnHub(backend, computer, standbyUrl), computer.getName() + " moved to the standby hub");
+            assertTrue(computer.getAction(SeleniumAgentAction.class).getNodeActive());
+        }
+
+        for (Computer computer : agents) {
+            computer.getAction(SeleniumAgentAction.class).stopNode();
+        }
+    }
+
+    private static boolean isNodeOnHub(FakeProcessBackend backend, Computer computer, String hubUrl) {
+        FakeProcessBackend.FakeProcess node = backend.getProcess(computer, NODE_PORT);
+        return node != null && node.isAlive() && hubUrl.equals(node.getHubUrl());
+    }
+
+    /**
+     * Puts the server JAR where the node start looks for it, so nothing is downloaded.
+     */
+    private static SeleniumAgentAction prepareAgent(Computer computer) throws Exception {
+        FilePath tmp = computer.getNode().getRootPath().child("selenium-tmp");
+        tmp.mkdirs();
+        try (OutputStream out = tmp.child("selenium-" + VERSION + ".jar").write();
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            zip.closeEntry();
+        }
+        SeleniumAgentAction action = computer.getAction(SeleniumAgentAction.class);
+        assertNotNull(action);
+        return action;
+    }
+
+    private void failOver() {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            failover.check();
+        }
+        assertTrue(globalProp.isStandbyHubActive());
+    }
+
+    private HttpServer startHub(int port) throws IOException {
+        HttpServer hub = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        hub.createContext("/status", exchange -> {
+            byte[] body = "{\"value\":{\"ready\":true,\"nodes\":[]}}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        hub.start();
+        hubs.add(hub);
+        return hub;
+    }
+
+    private static String urlOf(HttpServer hub) {
+        return "http://localhost:" + hub.getAddress().getPort();
+    }
+}